@@ -1,4 +1,4 @@
-import {Component, OnInit} from '@angular/core';
+import {Component, NgZone, OnDestroy, OnInit} from '@angular/core';
 import {FormBuilder, FormGroup, Validators} from '@angular/forms';
 import {HttpClient} from '@angular/common/http';
 import {LoadingService} from "../../../services/loader/loading.service";
@@ -17,7 +17,7 @@ import {trigger, transition, style, animate} from '@angular/animations';
     ])
   ]
 })
-export class HomeComponent implements OnInit {
+export class HomeComponent implements OnInit, OnDestroy {
   popularCurrencies: { name: string, rate: number }[] = [];
   lastUpdate: string | undefined;
   isLoading = false;
@@ -27,10 +27,13 @@ export class HomeComponent implements OnInit {
   currencies: any[] = [];
   errorMessage: string | null = null;
 
+  private rateUpdates: EventSource | null = null;
+
   constructor(
     private http: HttpClient,
     private loadingService: LoadingService,
-    private fb: FormBuilder
+    private fb: FormBuilder,
+    private zone: NgZone
   ) {
     this.calculatorForm = this.fb.group({
       fromCurrency: ['EUR', Validators.required],
@@ -43,6 +46,27 @@ export class HomeComponent implements OnInit {
   ngOnInit(): void {
     this.fetchData();
     this.loadAvailableCurrencies();
+    this.subscribeToRateUpdates();
+  }
+
+  ngOnDestroy(): void {
+    this.rateUpdates?.close();
+  }
+
+  // The server pushes the rates that changed after each update; a resync means some were missed
+  subscribeToRateUpdates(): void {
+    this.rateUpdates = new EventSource('/api/fx-rate/updates');
+    this.rateUpdates.addEventListener('rates', (event: MessageEvent) => this.zone.run(() => {
+      const changes: { type: string, currency: string, date: string, rate: number }[] = JSON.parse(event.data);
+      changes.filter(change => change.type === 'LT').forEach(change => {
+        const popularCurrency = this.popularCurrencies.find(currency => currency.name === change.currency);
+        if (popularCurrency) {
+          popularCurrency.rate = change.rate;
+        }
+        this.lastUpdate = change.date;
+      });
+    }));
+    this.rateUpdates.addEventListener('resync', () => this.zone.run(() => this.fetchData()));
   }
 
   fetchData(): void {
@@ -106,13 +130,16 @@ export class HomeComponent implements OnInit {
     this.errorMessage = null;
 
     this.loadingService.show();
-    this.http.get(`/api/fx-rate/cross-rate/${fromCurrency}/${toCurrency}`)
+    this.http.post('/api/fx-rate/convert', {from: fromCurrency, to: [toCurrency], amount})
       .subscribe((data: any) => {
-        this.result = data;
+        const conversion = data.conversions[0];
+        this.result = conversion.rate;
         this.isLoading = false;
         this.loadingService.hide();
         if (this.result != null) {
-          this.calculatorForm.get('result')?.setValue((this.result * amount).toFixed(5));
+          this.calculatorForm.get('result')?.setValue(conversion.convertedAmount);
+        } else {
+          this.errorMessage = 'Currency data not found.';
         }
       }, error => {
         console.error('Error converting currency:', error);
@@ -0,0 +1,60 @@
+package com.portal.exchangerate.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent calls with the same key: the first caller starts the load, every caller arriving
+ * while it is in flight gets the same future. Once the load completes the key is released, so results are
+ * never reused after the fact (that is the job of a cache in front of this).
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existingCall = inFlight.putIfAbsent(key, call);
+        if (existingCall != null) {
+            hits.increment();
+            waiters.incrementAndGet();
+            return existingCall.whenComplete((value, error) -> waiters.decrementAndGet());
+        }
+
+        misses.increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, call);
+                if (error != null) {
+                    call.completeExceptionally(error);
+                } else {
+                    call.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    public Stats getStats() {
+        return new Stats(misses.sum(), hits.sum(), waiters.get(), inFlight.size());
+    }
+
+    /**
+     * @param misses           calls that started a new load
+     * @param hits             calls that joined a load already in flight
+     * @param coalescedWaiters callers currently waiting on a load started by someone else
+     * @param inFlight         loads currently in flight
+     */
+    public record Stats(long misses, long hits, int coalescedWaiters, int inFlight) {
+    }
+}
@@ -1,34 +1,330 @@
 package com.portal.exchangerate.api;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Client for the lb.lt FxRates web service. All calls go through the shared, pooled {@link HttpClient} bean
+ * (keep-alive, HTTP/2 where available, connect timeout) and ask for gzip encoded responses. The asynchronous
+ * methods are the primary API; the synchronous ones wait for them and rethrow their failure unchanged.
+ * <p>
+ * {@code fx.rates.webservice.read-timeout} bounds both the wait for the response headers and the reading of the
+ * body (including the body reader): a reader still busy when it expires is interrupted and the call fails with an
+ * {@link HttpTimeoutException}, so a server that stalls mid-body cannot block a caller forever.
+ * <p>
+ * Every call is timed as {@code fx.upstream.requests} (tagged with the operation and its outcome) until the body
+ * reader is done, which for the streaming variants includes parsing, and the decoded body size is recorded as
+ * {@code fx.upstream.response.size}.
+ */
 @Component
 public class WebServiceClient {
 
+    private static final ScheduledExecutorService readDeadlines = createReadDeadlineScheduler();
+
     @Value("${fx.rates.webservice.base-url}")
     private String baseUrl;
 
+    @Value("${fx.rates.webservice.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Autowired
+    private HttpClient httpClient;
+
     @Autowired
-    private RestTemplate restTemplate;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    private final UriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory();
 
     public String getCurrencyList() {
-        return restTemplate.getForObject(baseUrl + "/getCurrencyList", String.class);
+        return join(getCurrencyListAsync());
     }
 
     public String getCurrentFxRates(String tp) {
-        return restTemplate.getForObject(baseUrl + "/getCurrentFxRates?tp={tp}", String.class, tp);
+        return join(getCurrentFxRatesAsync(tp));
     }
 
     public String getFxRates(String tp, LocalDate dt) {
-        return restTemplate.getForObject(baseUrl + "/getFxRates?tp={tp}&dt={dt}", String.class, tp, dt);
+        return join(getFxRatesAsync(tp, dt));
     }
 
     public String getFxRatesForCurrency(String tp, String ccy, LocalDate dtFrom, LocalDate dtTo) {
-        return restTemplate.getForObject(baseUrl + "/getFxRatesForCurrency?tp={tp}&ccy={ccy}&dtFrom={dtFrom}&dtTo={dtTo}", String.class, tp, ccy, dtFrom, dtTo);
+        return join(getFxRatesForCurrencyAsync(tp, ccy, dtFrom, dtTo));
+    }
+
+    // Streaming variants: the body reader consumes the response stream directly instead of a buffered String
+
+    public <T> T getCurrencyList(Function<InputStream, T> bodyReader) {
+        return join(getCurrencyListAsync(bodyReader));
+    }
+
+    public <T> T getCurrentFxRates(String tp, Function<InputStream, T> bodyReader) {
+        return join(getCurrentFxRatesAsync(tp, bodyReader));
+    }
+
+    public <T> T getFxRates(String tp, LocalDate dt, Function<InputStream, T> bodyReader) {
+        return join(getFxRatesAsync(tp, dt, bodyReader));
+    }
+
+    public <T> T getFxRatesForCurrency(String tp, String ccy, LocalDate dtFrom, LocalDate dtTo, Function<InputStream, T> bodyReader) {
+        return join(getFxRatesForCurrencyAsync(tp, ccy, dtFrom, dtTo, bodyReader));
+    }
+
+    // Asynchronous variants: the future completes once the body has been read, the calling thread is never blocked
+
+    public CompletableFuture<String> getCurrencyListAsync() {
+        return getCurrencyListAsync(WebServiceClient::readString);
+    }
+
+    public CompletableFuture<String> getCurrentFxRatesAsync(String tp) {
+        return getCurrentFxRatesAsync(tp, WebServiceClient::readString);
+    }
+
+    public CompletableFuture<String> getFxRatesAsync(String tp, LocalDate dt) {
+        return getFxRatesAsync(tp, dt, WebServiceClient::readString);
+    }
+
+    public CompletableFuture<String> getFxRatesForCurrencyAsync(String tp, String ccy, LocalDate dtFrom, LocalDate dtTo) {
+        return getFxRatesForCurrencyAsync(tp, ccy, dtFrom, dtTo, WebServiceClient::readString);
+    }
+
+    public <T> CompletableFuture<T> getCurrencyListAsync(Function<InputStream, T> bodyReader) {
+        return sendAsync("/getCurrencyList", bodyReader);
+    }
+
+    public <T> CompletableFuture<T> getCurrentFxRatesAsync(String tp, Function<InputStream, T> bodyReader) {
+        return sendAsync("/getCurrentFxRates?tp={tp}", bodyReader, tp);
+    }
+
+    public <T> CompletableFuture<T> getFxRatesAsync(String tp, LocalDate dt, Function<InputStream, T> bodyReader) {
+        return sendAsync("/getFxRates?tp={tp}&dt={dt}", bodyReader, tp, dt);
+    }
+
+    public <T> CompletableFuture<T> getFxRatesForCurrencyAsync(String tp, String ccy, LocalDate dtFrom, LocalDate dtTo, Function<InputStream, T> bodyReader) {
+        return sendAsync("/getFxRatesForCurrency?tp={tp}&ccy={ccy}&dtFrom={dtFrom}&dtTo={dtTo}", bodyReader, tp, ccy, dtFrom, dtTo);
+    }
+
+    private <T> CompletableFuture<T> sendAsync(String path, Function<InputStream, T> bodyReader, Object... uriVariables) {
+        HttpRequest request = HttpRequest.newBuilder(uriBuilderFactory.expand(baseUrl + path, uriVariables))
+                .timeout(readTimeout)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .GET()
+                .build();
+
+        String operation = path.substring(1, path.indexOf('?') < 0 ? path.length() : path.indexOf('?'));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> readBody(response, bodyReader, operation))
+                .whenComplete((body, failure) -> sample.stop(Timer.builder("fx.upstream.requests")
+                        .description("Calls to the FxRates web service, until the response body is read")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome(failure))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+    }
+
+    private <T> T readBody(HttpResponse<InputStream> response, Function<InputStream, T> bodyReader, String operation) {
+        CountingInputStream body = null;
+        ReadDeadline deadline = new ReadDeadline(readTimeout);
+        try (deadline; InputStream decoded = decode(response)) {
+            body = new CountingInputStream(decoded);
+            if (response.statusCode() >= 400) {
+                throw statusException(response.statusCode(), body.readAllBytes());
+            }
+            T result = bodyReader.apply(body);
+            if (deadline.isExpired()) {
+                throw deadline.timeoutException();
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(deadline.isExpired() ? deadline.timeoutException() : e);
+        } catch (RuntimeException e) {
+            // Body readers may turn the interrupted read into their own exception or result
+            if (deadline.isExpired()) {
+                throw new UncheckedIOException(deadline.timeoutException());
+            }
+            throw e;
+        } finally {
+            if (body != null) {
+                DistributionSummary.builder("fx.upstream.response.size")
+                        .description("Decoded size of the FxRates web service responses")
+                        .baseUnit("bytes")
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(body.getCount());
+            }
+        }
+    }
+
+    private static ScheduledExecutorService createReadDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("fx-upstream-read-deadline").daemon().factory());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static String outcome(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause == null) {
+            return "success";
+        } else if (cause instanceof HttpClientErrorException) {
+            return "client_error";
+        } else if (cause instanceof HttpServerErrorException) {
+            return "server_error";
+        }
+        return "error";
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static RuntimeException statusException(int statusCode, byte[] body) {
+        HttpStatusCode status = HttpStatusCode.valueOf(statusCode);
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, "", HttpHeaders.EMPTY, body, StandardCharsets.UTF_8);
+        }
+        return HttpServerErrorException.create(status, "", HttpHeaders.EMPTY, body, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(InputStream inputStream) {
+        try {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uncheckedIOException) {
+                cause = uncheckedIOException.getCause();
+            }
+            if (cause instanceof IOException ioException) {
+                throw new ResourceAccessException("I/O error calling the FxRates web service: " + ioException.getMessage(), ioException);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Interrupts the thread that reads a response body if it is still reading when the read timeout expires; the
+     * blocking response stream gives up on interrupt. Closing it clears an interrupt it caused.
+     */
+    private static final class ReadDeadline implements AutoCloseable {
+
+        private final Duration timeout;
+        private final Thread reader = Thread.currentThread();
+        private final ScheduledFuture<?> watchdog;
+        private boolean closed;
+        private volatile boolean expired;
+
+        private ReadDeadline(Duration timeout) {
+            this.timeout = timeout;
+            this.watchdog = readDeadlines.schedule(this::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private synchronized void expire() {
+            if (!closed) {
+                expired = true;
+                reader.interrupt();
+            }
+        }
+
+        private boolean isExpired() {
+            return expired;
+        }
+
+        private HttpTimeoutException timeoutException() {
+            return new HttpTimeoutException("Response body not read within " + timeout);
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            watchdog.cancel(false);
+            if (expired) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        private long getCount() {
+            return count;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,31 +1,55 @@
 package com.portal.exchangerate.config;
 
 import com.portal.exchangerate.dto.FxRateDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
 @Configuration
 @EnableScheduling
+@EnableCaching
 public class AppConfig {
 
     @Bean
-    public WebMvcConfigurer webMvcConfigurer() {
+    public WebMvcConfigurer webMvcConfigurer(ConditionalRequestInterceptor conditionalRequestInterceptor) {
         return new WebMvcConfigurer() {
 
             @Override
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**").allowedOrigins("http://localhost:4200");
             }
+
+            // The update stream is never complete, so it has no validator
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(conditionalRequestInterceptor)
+                        .addPathPatterns("/api/fx-rate/**", "/api/last-update")
+                        .excludePathPatterns("/api/fx-rate/updates", "/api/fx-rate/backfill");
+            }
         };
     }
 
+    /**
+     * Pooled client shared by all web service calls. Connections are kept alive between calls, and response bodies
+     * are read on virtual threads, so a slow upstream response never holds a platform thread.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient httpClient(@Value("${fx.rates.webservice.connect-timeout:5s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
     }
 
     @Bean
@@ -0,0 +1,100 @@
+package com.portal.exchangerate.config;
+
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers conditional GET requests for the rate endpoints before the handler runs. The rates only change when a
+ * snapshot is published or an update is stored, so the strong ETag of a response is derived from the snapshot
+ * version and the number of {@link FxRatesUpdatedEvent}s (plus the start time, so tags of a previous run never
+ * match), and from a SHA-256 digest of the request URI, query and Accept header, which select the currency, date range
+ * and representation. {@code Last-Modified} is the time of the last data update.
+ * <p>
+ * A request whose {@code If-None-Match} (or, without it, {@code If-Modified-Since}) still matches is answered with
+ * 304 right away: no service call, no model assembly and no serialization.
+ */
+@Component
+public class ConditionalRequestInterceptor implements HandlerInterceptor {
+
+    private final RateSnapshotHolder rateSnapshotHolder;
+    private final DataUpdateScheduler dataUpdateScheduler;
+
+    private final String instance = Long.toHexString(Instant.now().toEpochMilli());
+    private final AtomicLong updateCount = new AtomicLong();
+
+    @Autowired
+    public ConditionalRequestInterceptor(RateSnapshotHolder rateSnapshotHolder, DataUpdateScheduler dataUpdateScheduler) {
+        this.rateSnapshotHolder = rateSnapshotHolder;
+        this.dataUpdateScheduler = dataUpdateScheduler;
+    }
+
+    @EventListener(FxRatesUpdatedEvent.class)
+    public void onFxRatesUpdated() {
+        updateCount.incrementAndGet();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch of a streamed body was already checked on the way in
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        return !checkNotModified(request, response, getETag(request));
+    }
+
+    /**
+     * Sets the validators of the response and returns true if the request still matches them, in which case the
+     * response is now a 304.
+     */
+    boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        Instant lastUpdateTime = dataUpdateScheduler.getLastUpdateTime();
+        long lastModified = lastUpdateTime != null ? lastUpdateTime.toEpochMilli() : -1;
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+
+    // A shared cache revalidates every variant with its own tag, so distinct requests must never share one: the
+    // representation part is a SHA-256 digest, not a hash a client can make collide with a chosen query string
+    String getETag(HttpServletRequest request) {
+        String representation = request.getRequestURI() + "\n" + request.getQueryString() + "\n" + request.getHeader(HttpHeaders.ACCEPT);
+        byte[] digest = sha256().digest(representation.getBytes(StandardCharsets.UTF_8));
+        return "\"" + getRatesVersion() + "-" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Identifies the rates every response is built from: it changes with each published snapshot and stored update.
+     */
+    String getRatesVersion() {
+        return instance + "-" + rateSnapshotHolder.get().getVersion() + "-" + updateCount.get();
+    }
+}
@@ -0,0 +1,207 @@
+package com.portal.exchangerate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the bodies of the endpoints that return the same bytes to every caller until the next data update
+ * ({@code current-exchange-rates/{type}}, {@code currency-list}, {@code available-currency-list}) from memory.
+ * The first response for a representation is captured as the controller wrote it and kept, together with a gzip
+ * copy compressed once at the highest level, under the exact request (path, query and Accept header) and the
+ * version of the rates; later requests get those bytes written straight to the response, gzipped if they accept it,
+ * without a handler call, HATEOAS assembly or Jackson serialization. The rates version changes with every snapshot
+ * and update, so stale bodies are never served, and the whole cache is dropped on {@link FxRatesUpdatedEvent}.
+ * <p>
+ * Links in the bodies are absolute, so entries are also keyed by the base URL of the request. CORS requests go
+ * through the dispatcher, which adds the CORS headers.
+ */
+@Component
+public class PreparedResponseFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreparedResponseFilter.class);
+
+    private static final String GZIP = "gzip";
+
+    private static final String CURRENT_EXCHANGE_RATES_PATH = "/api/fx-rate/current-exchange-rates/";
+    private static final Set<String> CURRENCY_LIST_PATHS = Set.of("/api/fx-rate/currency-list", "/api/fx-rate/available-currency-list");
+
+    private final ConditionalRequestInterceptor conditionalRequestInterceptor;
+    private final boolean enabled;
+    private final Cache<String, PreparedResponse> preparedResponses;
+
+    @Autowired
+    public PreparedResponseFilter(ConditionalRequestInterceptor conditionalRequestInterceptor,
+                                  @Value("${fx.rates.prepared-responses.enabled:true}") boolean enabled,
+                                  @Value("${fx.rates.prepared-responses.max-size:16MB}") DataSize maxSize) {
+        this.conditionalRequestInterceptor = conditionalRequestInterceptor;
+        this.enabled = enabled;
+        this.preparedResponses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, PreparedResponse preparedResponse) -> preparedResponse.size())
+                .build();
+    }
+
+    @EventListener(FxRatesUpdatedEvent.class)
+    public void evictPreparedResponses() {
+        preparedResponses.invalidateAll();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !HttpMethod.GET.matches(request.getMethod()) || CorsUtils.isCorsRequest(request)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !CURRENCY_LIST_PATHS.contains(path) && !path.startsWith(CURRENT_EXCHANGE_RATES_PATH);
+    }
+
+    // The compact representation is streamed; its async dispatch only has to flush the captured body
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            ContentCachingResponseWrapper responseWrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            if (responseWrapper != null && !isAsyncStarted(request)) {
+                responseWrapper.copyBodyToResponse();
+            }
+            return;
+        }
+
+        String etag = conditionalRequestInterceptor.getETag(request);
+        String key = getKey(request);
+
+        PreparedResponse preparedResponse = preparedResponses.getIfPresent(key);
+        if (preparedResponse != null) {
+            if (!conditionalRequestInterceptor.checkNotModified(request, response, etag)) {
+                write(preparedResponse, request, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+        if (isAsyncStarted(request)) {
+            return;
+        }
+
+        if (responseWrapper.getStatus() != HttpStatus.OK.value() || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+
+        preparedResponse = prepare(responseWrapper.getContentAsByteArray(), responseWrapper.getContentType());
+        preparedResponses.put(key, preparedResponse);
+        logger.debug("Prepared {} bytes ({} gzipped) for {}", preparedResponse.identity.length, preparedResponse.gzip.length,
+                request.getRequestURI());
+        responseWrapper.resetBuffer();
+        write(preparedResponse, request, response);
+    }
+
+    // The exact representation, never a hash of it: a colliding key would serve one body for another request.
+    // Header values and encoded URIs hold no line breaks.
+    private String getKey(HttpServletRequest request) {
+        return conditionalRequestInterceptor.getRatesVersion()
+                + "\n" + ServletUriComponentsBuilder.fromContextPath(request).toUriString()
+                + "\n" + request.getRequestURI()
+                + "\n" + request.getQueryString()
+                + "\n" + request.getHeader(HttpHeaders.ACCEPT);
+    }
+
+    private static PreparedResponse prepare(byte[] body, String contentType) throws IOException {
+        ByteArrayOutputStream gzipBody = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipBody) {{
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }}) {
+            gzipOutputStream.write(body);
+        }
+        return new PreparedResponse(contentType, body, gzipBody.toByteArray());
+    }
+
+    private static void write(PreparedResponse preparedResponse, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        byte[] body = preparedResponse.identity;
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) && preparedResponse.gzip.length < body.length) {
+            body = preparedResponse.gzip;
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentType(preparedResponse.contentType);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (!name.equalsIgnoreCase(GZIP) && !name.equals("*")) {
+                continue;
+            }
+            boolean accepted = true;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            return accepted;
+        }
+        return false;
+    }
+
+    private static final class PreparedResponse {
+
+        private final String contentType;
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        private PreparedResponse(String contentType, byte[] identity, byte[] gzip) {
+            this.contentType = contentType;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        private int size() {
+            return identity.length + gzip.length;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.portal.exchangerate.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compact representation of the bulk endpoints of {@link FxRateController}, selected with
+ * {@code Accept: application/vnd.fx.compact+json} or {@code ?format=compact} (see spring.mvc.contentnegotiation).
+ * Instead of an {@code EntityModel} with its own self link per element, the body carries plain arrays and one
+ * link for the whole collection, and it is written to the response with a streaming JSON generator:
+ * <pre>
+ * {"type":"LT","baseCurrency":"EUR","rates":{"USD":[["2024-03-01",1.083],...],...},"_links":{"self":{"href":"..."}}}
+ * {"currencies":[["USD","JAV doleris",840,"2"],...],"_links":{"self":{"href":"..."}}}
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/fx-rate")
+public class FxRateCompactController {
+
+    public static final String COMPACT_JSON_VALUE = "application/vnd.fx.compact+json";
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateCompactController.class);
+
+    private static final String BASE_CURRENCY = "EUR";
+
+    private final FxRateService fxRateService;
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public FxRateCompactController(FxRateService fxRateService, ObjectMapper objectMapper) {
+        this.fxRateService = fxRateService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @GetMapping(value = "/currency-list", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getCurrencyList() {
+        return currencies(fxRateService.getCurrencies());
+    }
+
+    @GetMapping(value = "/available-currency-list", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAvailableCurrencyList() {
+        return currencies(fxRateService.getAvailableCurrencies());
+    }
+
+    @GetMapping(value = "/current-exchange-rates/{exchangeRateType}", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getCurrentExchangeRates(@PathVariable ExchangeRateType exchangeRateType) {
+        return fxRates(exchangeRateType, () -> fxRateService.getCurrentFxRates(exchangeRateType, null, null));
+    }
+
+    @GetMapping(value = "/exchange-rates/{exchangeRateType}/{date}", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getExchangeRates(@PathVariable ExchangeRateType exchangeRateType,
+                                                                  @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        return fxRates(exchangeRateType, () -> fxRateService.getFxRates(exchangeRateType, null, null, date.toString(), date.toString()));
+    }
+
+    @GetMapping(value = "/exchange-rates/{exchangeRateType}/{currency}/{startDate}/{endDate}", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getExchangeRatesForCurrency(@PathVariable ExchangeRateType exchangeRateType,
+                                                                             @PathVariable String currency,
+                                                                             @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+                                                                             @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        return fxRates(exchangeRateType, () -> fxRateService.getFxRates(exchangeRateType, null, currency, startDate.toString(), endDate.toString()));
+    }
+
+    private ResponseEntity<StreamingResponseBody> currencies(List<CcyDTO> currencyList) {
+        if (currencyList == null || currencyList.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        return compact(generator -> {
+            generator.writeArrayFieldStart("currencies");
+            for (CcyDTO currency : currencyList) {
+                generator.writeStartArray();
+                generator.writeString(currency.getCurrencyCode());
+                generator.writeString(currency.getCurrencyName());
+                if (currency.getCurrencyNumber() != null) {
+                    generator.writeNumber(currency.getCurrencyNumber());
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeString(currency.getMinorUnits());
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    private ResponseEntity<StreamingResponseBody> fxRates(ExchangeRateType exchangeRateType, Supplier<List<FxRateDTO>> fxRatesSupplier) {
+        if (exchangeRateType != ExchangeRateType.EU && exchangeRateType != ExchangeRateType.LT) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        Map<String, List<FxRateDTO>> fxRatesByCurrency = new LinkedHashMap<>();
+        try {
+            for (FxRateDTO fxRateDTO : fxRatesSupplier.get()) {
+                String quoteCurrency = getQuoteCurrency(fxRateDTO);
+                if (quoteCurrency != null) {
+                    fxRatesByCurrency.computeIfAbsent(quoteCurrency, currency -> new ArrayList<>()).add(fxRateDTO);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error fetching exchange rates: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        return compact(generator -> {
+            generator.writeStringField("type", exchangeRateType.getValue());
+            generator.writeStringField("baseCurrency", BASE_CURRENCY);
+            generator.writeObjectFieldStart("rates");
+            for (Map.Entry<String, List<FxRateDTO>> entry : fxRatesByCurrency.entrySet()) {
+                generator.writeArrayFieldStart(entry.getKey());
+                for (FxRateDTO fxRateDTO : entry.getValue()) {
+                    generator.writeStartArray();
+                    generator.writeString(fxRateDTO.getDate().toString());
+                    generator.writeNumber(fxRateDTO.getRate());
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        });
+    }
+
+    // The one collection-level link is resolved here, on the request thread; the body is written later
+    private ResponseEntity<StreamingResponseBody> compact(ContentWriter contentWriter) {
+        String selfHref = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        return ResponseEntity.ok().contentType(COMPACT_JSON).body(outputStream -> {
+            try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartObject();
+                contentWriter.write(generator);
+                generator.writeObjectFieldStart("_links");
+                generator.writeObjectFieldStart("self");
+                generator.writeStringField("href", selfHref);
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+        });
+    }
+
+    private static String getQuoteCurrency(FxRateDTO fxRateDTO) {
+        if (fxRateDTO.getCurrencyAmounts() == null) {
+            return null;
+        }
+        for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
+            if (!BASE_CURRENCY.equals(ccyAmtDTO.getTargetCurrency())) {
+                return ccyAmtDTO.getTargetCurrency();
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -1,8 +1,12 @@
 package com.portal.exchangerate.controller;
 
+import com.portal.exchangerate.dto.BackfillResultDTO;
 import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import com.portal.exchangerate.dto.ConversionResultDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
 import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateBackfillService;
 import com.portal.exchangerate.service.FxRateService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.NonUniqueResultException;
@@ -22,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,10 +36,12 @@ public class FxRateController {
     private static final Logger logger = LoggerFactory.getLogger(FxRateController.class);
 
     private final FxRateService fxRateService;
+    private final FxRateBackfillService fxRateBackfillService;
 
     @Autowired
-    public FxRateController(FxRateService fxRateService) {
+    public FxRateController(FxRateService fxRateService, FxRateBackfillService fxRateBackfillService) {
         this.fxRateService = fxRateService;
+        this.fxRateBackfillService = fxRateBackfillService;
     }
 
     @GetMapping(value = "/currency-list", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -150,4 +157,60 @@ public class FxRateController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @GetMapping(value = "/cross-rate/{fromCurrency}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, BigDecimal>> getCrossRates(@PathVariable String fromCurrency) {
+        try {
+            Map<String, BigDecimal> crossRates = fxRateService.getCrossRates(fromCurrency);
+            if (crossRates == null || crossRates.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(crossRates, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error calculating cross rates: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/convert", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ConversionResultDTO> convert(@RequestBody ConversionRequestDTO conversionRequest) {
+        try {
+            return new ResponseEntity<>(fxRateService.convert(conversionRequest), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid conversion request: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error converting amounts: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/backfill/{exchangeRateType}/{startDate}/{endDate}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BackfillResultDTO> backfill(@PathVariable ExchangeRateType exchangeRateType,
+                                                      @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+                                                      @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+                                                      @RequestParam(required = false) String currency) {
+        try {
+            BackfillResultDTO backfill = fxRateBackfillService.startBackfill(exchangeRateType, startDate, endDate, currency);
+            return ResponseEntity.accepted()
+                    .location(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(FxRateController.class).getBackfill()).toUri())
+                    .body(backfill);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid backfill request: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            logger.error("Backfill rejected: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            logger.error("Error starting backfill: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/backfill", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BackfillResultDTO> getBackfill() {
+        return fxRateBackfillService.getLastBackfill()
+                .map(backfill -> new ResponseEntity<>(backfill, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.portal.exchangerate.controller;
+
+import com.portal.exchangerate.service.FxRateUpdateBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/fx-rate")
+public class FxRateUpdateController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateUpdateController.class);
+
+    private final FxRateUpdateBroadcaster fxRateUpdateBroadcaster;
+
+    @Autowired
+    public FxRateUpdateController(FxRateUpdateBroadcaster fxRateUpdateBroadcaster) {
+        this.fxRateUpdateBroadcaster = fxRateUpdateBroadcaster;
+    }
+
+    @GetMapping(value = "/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe() {
+        try {
+            return new ResponseEntity<>(fxRateUpdateBroadcaster.subscribe(), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            logger.warn("Rate update subscription rejected: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
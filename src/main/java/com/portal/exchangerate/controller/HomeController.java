@@ -5,11 +5,15 @@ import com.portal.exchangerate.schedule.DataUpdateScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.time.LocalDate;
+
 @Controller
 public class HomeController {
 
@@ -27,11 +31,15 @@ public class HomeController {
 
     @GetMapping(value = "/api/last-update", produces = "application/json")
     @ResponseBody
-    public EntityModel<LastUpdateDTO> getLastUpdate() {
-        LastUpdateDTO lastUpdateDTO = new LastUpdateDTO(dataUpdateScheduler.getLastUpdate().atStartOfDay());
+    public ResponseEntity<EntityModel<LastUpdateDTO>> getLastUpdate() {
+        LocalDate lastUpdate = dataUpdateScheduler.getLastUpdate();
+        if (lastUpdate == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        LastUpdateDTO lastUpdateDTO = new LastUpdateDTO(lastUpdate.atStartOfDay());
         EntityModel<LastUpdateDTO> resource = EntityModel.of(lastUpdateDTO);
         resource.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(HomeController.class).getLastUpdate()).withSelfRel());
-        return resource;
+        return ResponseEntity.ok(resource);
     }
 
 }
\ No newline at end of file
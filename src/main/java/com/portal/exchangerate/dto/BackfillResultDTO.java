@@ -0,0 +1,25 @@
+package com.portal.exchangerate.dto;
+
+import com.portal.exchangerate.enums.BackfillStatus;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillResultDTO {
+    private String type;
+    private String currency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BackfillStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int totalChunks;
+    private int skippedChunks;
+    private int completedChunks;
+    private int failedChunks;
+    private int insertedRates;
+}
@@ -0,0 +1,16 @@
+package com.portal.exchangerate.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionDTO {
+    private String from;
+    private String to;
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private BigDecimal convertedAmount;
+}
@@ -0,0 +1,20 @@
+package com.portal.exchangerate.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Either a list of (from, to, amount) {@code conversions}, or one {@code from} currency and {@code amount}
+ * converted into every currency of {@code to}. A conversion without an amount uses {@code amount}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionRequestDTO {
+    private String from;
+    private List<String> to;
+    private BigDecimal amount;
+    private List<ConversionDTO> conversions;
+}
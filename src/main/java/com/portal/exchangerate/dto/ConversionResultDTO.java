@@ -0,0 +1,16 @@
+package com.portal.exchangerate.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionResultDTO {
+    private String type;
+    private LocalDate date;
+    private long snapshotVersion;
+    private List<ConversionDTO> conversions;
+}
@@ -0,0 +1,16 @@
+package com.portal.exchangerate.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateChangeDTO {
+    private String type;
+    private String currency;
+    private LocalDate date;
+    private BigDecimal rate;
+}
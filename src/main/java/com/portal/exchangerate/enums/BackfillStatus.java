@@ -0,0 +1,7 @@
+package com.portal.exchangerate.enums;
+
+public enum BackfillStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
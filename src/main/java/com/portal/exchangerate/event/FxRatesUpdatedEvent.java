@@ -0,0 +1,22 @@
+package com.portal.exchangerate.event;
+
+import com.portal.exchangerate.dto.RateChangeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published after new exchange rates have been stored, either by the scheduled update or by a backfill.
+ * {@code changes} are the latest rates that differ from the previous snapshot; a backfill only adds history
+ * and has none.
+ */
+@Getter
+@AllArgsConstructor
+public class FxRatesUpdatedEvent {
+
+    private final String origin;
+
+    private final List<RateChangeDTO> changes;
+
+}
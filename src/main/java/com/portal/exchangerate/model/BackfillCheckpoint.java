@@ -0,0 +1,39 @@
+package com.portal.exchangerate.model;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "backfill_checkpoint")
+public class BackfillCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "backfill_checkpoint_seq")
+    @SequenceGenerator(name = "backfill_checkpoint_seq", sequenceName = "backfill_checkpoint_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "fx_rate_type")
+    private String fxRateType;
+
+    // null when the chunk was loaded for all currencies
+    @Column(name = "currency_code")
+    private String currencyCode;
+
+    @Column(name = "chunk_start")
+    private LocalDate chunkStart;
+
+    @Column(name = "chunk_end")
+    private LocalDate chunkEnd;
+
+    @Column(name = "rate_count")
+    private Integer rateCount;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+}
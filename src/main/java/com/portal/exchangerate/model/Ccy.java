@@ -1,7 +1,6 @@
 package com.portal.exchangerate.model;
 
 import jakarta.xml.bind.annotation.*;
-import org.hibernate.annotations.Index;
 import lombok.Data;
 
 import jakarta.persistence.*;
@@ -14,13 +13,13 @@ import jakarta.persistence.*;
 public class Ccy {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_list_seq")
+    @SequenceGenerator(name = "currency_list_seq", sequenceName = "currency_list_seq", allocationSize = 50)
     @XmlTransient
     private Long id;
 
     @XmlElement(name = "Ccy")
     @Column(name = "currency_code")
-    @Index(name = "idx_currency_code")
     private String currencyCode;
 
     @XmlElement(name = "CcyNm")
@@ -15,7 +15,8 @@ import java.math.BigDecimal;
 public class CcyAmt {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_amount_seq")
+    @SequenceGenerator(name = "currency_amount_seq", sequenceName = "currency_amount_seq", allocationSize = 50)
     @XmlTransient
     private Long id;
 
@@ -17,7 +17,8 @@ import java.util.List;
 public class FxRate {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fx_rates_seq")
+    @SequenceGenerator(name = "fx_rates_seq", sequenceName = "fx_rates_seq", allocationSize = 50)
     @XmlTransient
     private Long id;
 
@@ -41,6 +42,12 @@ public class FxRate {
     @JoinColumn(name = "base_currency", referencedColumnName = "currency_code")
     private Ccy baseCurrency;
 
+    // The currency quoted against the base currency, part of the natural key (date, type, base, quote)
+    @XmlTransient
+    @ManyToOne
+    @JoinColumn(name = "quote_currency", referencedColumnName = "currency_code")
+    private Ccy quoteCurrency;
+
     @Transient
     private String transientExchangeRateType;
 
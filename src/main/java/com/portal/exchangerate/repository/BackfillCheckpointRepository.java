@@ -0,0 +1,15 @@
+package com.portal.exchangerate.repository;
+
+import com.portal.exchangerate.model.BackfillCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BackfillCheckpointRepository extends JpaRepository<BackfillCheckpoint, Long> {
+
+    List<BackfillCheckpoint> findByFxRateTypeAndChunkStartLessThanEqualAndChunkEndGreaterThanEqual(String fxRateType, LocalDate endDate, LocalDate startDate);
+
+}
@@ -1,9 +1,12 @@
 package com.portal.exchangerate.repository;
 
+import com.portal.exchangerate.dto.CcyDTO;
 import com.portal.exchangerate.model.Ccy;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,11 @@ public interface CurrencyRepository extends JpaRepository<Ccy, Long> {
 
     Ccy findByCurrencyCode(String currencyCode);
 
+    List<Ccy> findByCurrencyCodeIn(Collection<String> currencyCodes);
+
+    // Currencies that appear in at least one stored currency amount: one idx_currency_amount_target_fx_rate probe per currency
+    @Query("select new com.portal.exchangerate.dto.CcyDTO(c.currencyCode, c.currencyName, c.currencyNumber, c.minorUnits) " +
+            "from Ccy c where exists (select 1 from CcyAmt a where a.targetCurrency = c) order by c.currencyCode")
+    List<CcyDTO> findAvailableCurrencies();
+
 }
\ No newline at end of file
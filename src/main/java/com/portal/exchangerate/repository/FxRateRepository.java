@@ -1,12 +1,16 @@
 package com.portal.exchangerate.repository;
 
-import com.portal.exchangerate.enums.ExchangeRateType;
 import com.portal.exchangerate.model.Ccy;
 import com.portal.exchangerate.model.FxRate;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,34 @@ public interface FxRateRepository extends JpaRepository<FxRate, Long> {
 
     List<FxRate> findByFxRateDateAndFxRateType(LocalDate fxRateDate, String fxRateType);
 
-    Optional<FxRate> findByFxRateTypeAndBaseCurrencyOrderByFxRateDateDesc(ExchangeRateType fxRateType, Ccy baseCurrency);
+    /*
+     * The "latest" queries below order by all columns of their index, including those fixed by the where clause:
+     * H2 only reads an index in order (and stops after the first entry) if the order by starts with its first column.
+     */
 
-}
\ No newline at end of file
+    // Ordered and limited rather than max(), so it reads one entry of idx_fx_rates_type_date instead of the whole type
+    @Query("select f.fxRateDate from FxRate f where f.fxRateType = :fxRateType order by f.fxRateType, f.fxRateDate desc limit 1")
+    Optional<LocalDate> findLatestRateDate(@Param("fxRateType") String fxRateType);
+
+    // Latest rate of a quoted currency, read from idx_fx_rates_type_quote_date alone
+    @Query("select f.fxRate from FxRate f where f.fxRateType = :fxRateType and f.quoteCurrency.currencyCode = :currencyCode " +
+            "order by f.fxRateType, f.quoteCurrency.currencyCode, f.fxRateDate desc limit 1")
+    Optional<BigDecimal> findLatestRate(@Param("fxRateType") String fxRateType, @Param("currencyCode") String currencyCode);
+
+    @Query("select f from FxRate f where f.fxRateType = :fxRateType and f.baseCurrency = :baseCurrency " +
+            "order by f.fxRateType, f.baseCurrency.currencyCode, f.fxRateDate desc limit 1")
+    Optional<FxRate> findLatestByFxRateTypeAndBaseCurrency(@Param("fxRateType") String fxRateType, @Param("baseCurrency") Ccy baseCurrency);
+
+    @EntityGraph(attributePaths = {"baseCurrency", "currencyAmounts", "currencyAmounts.targetCurrency"})
+    List<FxRate> findWithCurrencyAmountsByFxRateDateAndFxRateType(LocalDate fxRateDate, String fxRateType);
+
+    // Rates stored under the natural key (date, type, base, quote) for the type, date range and quoted currencies
+    @EntityGraph(attributePaths = {"baseCurrency", "quoteCurrency", "currencyAmounts", "currencyAmounts.targetCurrency"})
+    @Query("select f from FxRate f where f.fxRateType = :fxRateType " +
+            "and f.fxRateDate between :startDate and :endDate and f.quoteCurrency.currencyCode in :quoteCurrencies")
+    List<FxRate> findStoredRates(@Param("fxRateType") String fxRateType,
+                                 @Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate,
+                                 @Param("quoteCurrencies") Collection<String> quoteCurrencies);
+
+}
@@ -1,31 +1,43 @@
 package com.portal.exchangerate.schedule;
 
 import com.portal.exchangerate.api.WebServiceClient;
-import com.portal.exchangerate.dto.CcyAmtDTO;
 import com.portal.exchangerate.dto.CcyDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
 import com.portal.exchangerate.enums.ExchangeRateType;
-import com.portal.exchangerate.model.Ccy;
-import com.portal.exchangerate.model.CcyAmt;
-import com.portal.exchangerate.model.FxRate;
-import com.portal.exchangerate.repository.CurrencyAmountRepository;
-import com.portal.exchangerate.repository.CurrencyRepository;
-import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.service.FxRateIngestService;
+import com.portal.exchangerate.service.FxRateIngestService.UpsertResult;
 import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.RateArchive;
+import com.portal.exchangerate.snapshot.RateSnapshot;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.annotation.PostConstruct;
-
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @Component
 public class DataUpdateScheduler {
@@ -33,31 +45,96 @@ public class DataUpdateScheduler {
     private static final Logger logger = LoggerFactory.getLogger(DataUpdateScheduler.class);
 
     @Getter
-    private LocalDate lastUpdate;
+    private volatile LocalDate lastUpdate;
+    @Getter
+    private volatile Duration lastUpdateDuration;
+    @Getter
+    private volatile Instant lastUpdateTime;
+
+    @Value("${fx.rates.initial-load.retry-interval:1m}")
+    private Duration initialLoadRetryInterval = Duration.ofMinutes(1);
+
     private final XmlDataParser xmlDataParser;
     private final WebServiceClient webServiceClient;
-    private final CurrencyRepository currencyRepository;
-    private final FxRateRepository fxRateRepository;
-    private final CurrencyAmountRepository currencyAmountRepository;
+    private final FxRateIngestService fxRateIngestService;
+    private final RateSnapshotHolder rateSnapshotHolder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RateArchive rateArchive;
+    private final MeterRegistry meterRegistry;
+    private final InitialLoadHealthIndicator initialLoadHealthIndicator;
 
     @Autowired
     public DataUpdateScheduler(XmlDataParser xmlDataParser, WebServiceClient webServiceClient,
-                               CurrencyRepository currencyRepository, FxRateRepository fxRateRepository,
-                               CurrencyAmountRepository currencyAmountRepository) {
+                               FxRateIngestService fxRateIngestService, RateSnapshotHolder rateSnapshotHolder,
+                               ApplicationEventPublisher eventPublisher, RateArchive rateArchive, MeterRegistry meterRegistry,
+                               InitialLoadHealthIndicator initialLoadHealthIndicator) {
         this.xmlDataParser = xmlDataParser;
         this.webServiceClient = webServiceClient;
-        this.currencyRepository = currencyRepository;
-        this.fxRateRepository = fxRateRepository;
-        this.currencyAmountRepository = currencyAmountRepository;
+        this.fxRateIngestService = fxRateIngestService;
+        this.rateSnapshotHolder = rateSnapshotHolder;
+        this.eventPublisher = eventPublisher;
+        this.rateArchive = rateArchive;
+        this.meterRegistry = meterRegistry;
+        this.initialLoadHealthIndicator = initialLoadHealthIndicator;
+
+        Gauge.builder("fx.rates.snapshot.age", this, DataUpdateScheduler::getSnapshotAgeSeconds)
+                .description("Time since the last successful data update, NaN before the first one")
+                .baseUnit("seconds")
+                .register(meterRegistry);
     }
 
-    @PostConstruct
+    /**
+     * Starts the initial load once the application is up, so startup never waits for the web service. The readiness
+     * probe ({@link InitialLoadHealthIndicator}) reports out of service until a first snapshot is published: at once if
+     * the rate archive has rates, otherwise when the first refresh succeeds. A failed refresh is retried every {@code fx.rates.initial-load.retry-interval}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
     public void initialDataLoad() {
         logger.info("Initial data load started");
-        updateData();
+        if (restoreArchivedRates()) {
+            markInitialLoadCompleted();
+        }
+        Thread.ofVirtual().name("initial-data-load").start(this::loadInitialData);
+    }
+
+    public void loadInitialData() {
+        while (!updateData()) {
+            logger.warn("Initial data load failed, retrying in {}", initialLoadRetryInterval);
+            try {
+                Thread.sleep(initialLoadRetryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        markInitialLoadCompleted();
         logger.info("Initial data load completed");
     }
 
+    public boolean isInitialLoadCompleted() {
+        return initialLoadHealthIndicator.isUp();
+    }
+
+    private void markInitialLoadCompleted() {
+        initialLoadHealthIndicator.markUp();
+    }
+
+    public boolean restoreArchivedRates() {
+        List<FxRateDTO> archivedFxRates = rateArchive.getLatestFxRates();
+        if (archivedFxRates.isEmpty()) {
+            return false;
+        }
+        rateSnapshotHolder.publish(archivedFxRates);
+        // Until the first refresh succeeds, the data is as recent as the latest archived rate date
+        archivedFxRates.stream().map(FxRateDTO::getDate).filter(Objects::nonNull).max(Comparator.naturalOrder())
+                .ifPresent(archivedDate -> {
+                    lastUpdate = archivedDate;
+                    lastUpdateTime = archivedDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
+                });
+        logger.info("Restored {} archived rates of {}, refreshing them in the background", archivedFxRates.size(), lastUpdate);
+        return true;
+    }
+
     @Scheduled(cron = "0 0 0 * * ?") // Cron schedule every midnight
     public void scheduledDataUpdate() {
         logger.info("Scheduled data update started");
@@ -65,158 +142,126 @@ public class DataUpdateScheduler {
         logger.info("Scheduled data update completed");
     }
 
-    public void updateData() {
+    /**
+     * Fetches the currency list and the LT and EU rates concurrently on virtual threads, then stores everything
+     * in one transaction and publishes a new rate snapshot, announcing the latest rates that changed with it in a
+     * {@link FxRatesUpdatedEvent}. Per-fetch and total timings are logged and the total
+     * is kept in {@link #getLastUpdateDuration()}. They are recorded as the {@code fx.update.stage} and
+     * {@code fx.update} timers, the rows written as {@code fx.update.rows.written} and {@code fx.update.rates}.
+     *
+     * @return whether the update succeeded
+     */
+    public boolean updateData() {
         logger.info("Start data update");
-
-        try {
-            String currencyXmlData = webServiceClient.getCurrencyList();
-
-            String exchangeRatesXmlDataLT = webServiceClient.getCurrentFxRates(ExchangeRateType.LT.getValue());
-            FxRateDTO fxRateDTOLT = xmlDataParser.parseExchangeRates(exchangeRatesXmlDataLT).get(0);
-            CcyAmt ccyAmtLT = createCcyAmtObjectBasedOnExchangeRate(fxRateDTOLT);
-            updateCurrencyAndExchangeRateAndCurrencyAmount(currencyXmlData, exchangeRatesXmlDataLT, ccyAmtLT);
-
-            String exchangeRatesXmlDataEU = webServiceClient.getCurrentFxRates(ExchangeRateType.EU.getValue());
-            FxRateDTO fxRateDTOEU = xmlDataParser.parseExchangeRates(exchangeRatesXmlDataEU).get(0);
-            CcyAmt ccyAmtEU = createCcyAmtObjectBasedOnExchangeRate(fxRateDTOEU);
-            updateCurrencyAndExchangeRateAndCurrencyAmount(currencyXmlData, exchangeRatesXmlDataEU, ccyAmtEU);
+        long startNanos = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        boolean updated = false;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<CcyDTO>> currencyListFuture = executor.submit(() -> timed(timings, "currencyList",
+                    () -> webServiceClient.getCurrencyList(xmlDataParser::parseCurrencyListStream)));
+            Future<List<FxRateDTO>> fxRatesLTFuture = executor.submit(() -> timed(timings, ExchangeRateType.LT.getValue(),
+                    () -> webServiceClient.getCurrentFxRates(ExchangeRateType.LT.getValue(), xmlDataParser::parseExchangeRatesStream)));
+            Future<List<FxRateDTO>> fxRatesEUFuture = executor.submit(() -> timed(timings, ExchangeRateType.EU.getValue(),
+                    () -> webServiceClient.getCurrentFxRates(ExchangeRateType.EU.getValue(), xmlDataParser::parseExchangeRatesStream)));
+
+            List<CcyDTO> currencyList = getResult(currencyListFuture, "currency list");
+            List<FxRateDTO> loadedFxRates = new ArrayList<>(getResult(fxRatesLTFuture, "LT exchange rates"));
+            loadedFxRates.addAll(getResult(fxRatesEUFuture, "EU exchange rates"));
+            long fetchedNanos = System.nanoTime();
+
+            UpsertResult upsertResult = fxRateIngestService.saveCurrencyListAndExchangeRates(currencyList, loadedFxRates);
+            rateArchive.append(loadedFxRates);
+            timings.put("persist", elapsedMillis(fetchedNanos));
+            recordRowsWritten(upsertResult);
+
+            RateSnapshot previousSnapshot = rateSnapshotHolder.get();
+            RateSnapshot snapshot = rateSnapshotHolder.publish(loadedFxRates);
+            eventPublisher.publishEvent(new FxRatesUpdatedEvent("scheduler", snapshot.getLatestRateChanges(previousSnapshot)));
 
             lastUpdate = LocalDate.now();
+            lastUpdateTime = Instant.now();
+            lastUpdateDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+            logger.info("Data update took {} ms (currency list {} ms, LT {} ms, EU {} ms, persist {} ms)",
+                    lastUpdateDuration.toMillis(), timings.get("currencyList"), timings.get(ExchangeRateType.LT.getValue()),
+                    timings.get(ExchangeRateType.EU.getValue()), timings.get("persist"));
+            updated = true;
         } catch (Exception e) {
             logger.error("Error updating data: {}", e.getMessage());
         }
 
+        recordTimings(timings, updated, System.nanoTime() - startNanos);
         logger.info("Completing data update");
+        return updated;
     }
 
-    private CcyAmt createCcyAmtObjectBasedOnExchangeRate(FxRateDTO fxRateDTO) {
-        if (fxRateDTO.getCurrencyAmounts() != null && !fxRateDTO.getCurrencyAmounts().isEmpty()) {
-            CcyAmtDTO ccyAmtDTO = fxRateDTO.getCurrencyAmounts().get(0);
-
-            CcyAmt ccyAmt = new CcyAmt();
-            ccyAmt.setAmount(ccyAmtDTO.getAmount());
-            return ccyAmt;
-        }
-        return null;
-    }
-
-    private void updateCurrencyAndExchangeRateAndCurrencyAmount(String currencyXmlData, String exchangeRatesXmlData, CcyAmt ccyAmt) {
-        List<CcyDTO> currencyList = xmlDataParser.parseCurrencyList(currencyXmlData);
-        saveCurrencyList(currencyList);
-
-        List<FxRateDTO> fxRateDTOList = xmlDataParser.parseExchangeRates(exchangeRatesXmlData);
-        if (fxRateDTOList != null) {
-            List<FxRate> savedFxRates = new ArrayList<>();
-            for (FxRateDTO fxRateDTO : fxRateDTOList) {
-                if ("N/A".equals(fxRateDTO.getBaseCurrency())) {
-                    logger.warn("Skipping saving currency amount due to incorrect currency code");
-                    continue;
-                }
-
-                CcyDTO ccyDTO = findCcyDTOByCurrencyCode(currencyList, fxRateDTO.getBaseCurrency());
-                if (ccyDTO != null) {
-                    List<CcyAmtDTO> currencyAmounts = fxRateDTO.getCurrencyAmounts();
-                    if (!currencyAmounts.isEmpty()) {
-                        CcyAmtDTO ccyAmtDTO = currencyAmounts.get(0);
-                    }
-                    savedFxRates.addAll(saveExchangeRate(fxRateDTO, ccyDTO, BigDecimal.ONE, ccyAmt));
-                }
-            }
-
-            for (int i = 0; i < savedFxRates.size(); i++) {
-                saveCurrencyAmount(savedFxRates.get(i), fxRateDTOList.get(i));
-            }
-        }
+    private void recordTimings(Map<String, Long> timings, boolean updated, long durationNanos) {
+        timings.forEach((stage, millis) -> Timer.builder("fx.update.stage")
+                .description("Stages of a data update: the fetches, including parsing, and persisting")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(millis, TimeUnit.MILLISECONDS));
+        Timer.builder("fx.update")
+                .description("Data updates from the FxRates web service")
+                .tag("outcome", updated ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
-    private CcyDTO findCcyDTOByCurrencyCode(List<CcyDTO> currencyList, String currencyCode) {
-        if (currencyCode == null) {
-            return null;
-        }
-
-        for (CcyDTO ccyDTO : currencyList) {
-            if (currencyCode.equals(ccyDTO.getCurrencyCode())) {
-                return ccyDTO;
-            }
-        }
-        return null;
+    private void recordRowsWritten(UpsertResult upsertResult) {
+        recordRowsWritten("fx_rates", upsertResult.insertedCount() + upsertResult.updatedCount());
+        recordRowsWritten("currency_amount", upsertResult.insertedCurrencyAmountCount());
+        countRates("inserted", upsertResult.insertedCount());
+        countRates("updated", upsertResult.updatedCount());
+        countRates("unchanged", upsertResult.unchangedCount());
     }
 
-    @Transactional
-    protected void saveCurrencyList(List<CcyDTO> currencyList) {
-        List<Ccy> currencies = new ArrayList<>();
-
-        for (CcyDTO ccyDTO : currencyList) {
-            if ("N/A".equals(ccyDTO.getCurrencyNumber())) {
-                logger.warn("Skipping saving currency {} due to incorrect currency number", ccyDTO.getCurrencyCode());
-                continue;
-            }
-
-            Ccy currency = currencyRepository.findByCurrencyCode(ccyDTO.getCurrencyCode());
-            if (currency == null) {
-                currency = new Ccy();
-                currency.setCurrencyCode(ccyDTO.getCurrencyCode());
-            }
-            currency.setCurrencyName(ccyDTO.getCurrencyName());
-            currency.setCurrencyNumber(ccyDTO.getCurrencyNumber());
-            currency.setMinorUnits(ccyDTO.getMinorUnits());
-            currencies.add(currency);
-        }
-
-        currencyRepository.saveAll(currencies);
-        logger.info("Saved or updated {} currencies", currencies.size());
+    private void recordRowsWritten(String table, int rows) {
+        DistributionSummary.builder("fx.update.rows.written")
+                .description("Rows inserted or updated by a data update")
+                .tag("table", table)
+                .register(meterRegistry)
+                .record(rows);
     }
 
-    @Transactional
-    protected List<FxRate> saveExchangeRate(FxRateDTO fxRateDTO, CcyDTO ccyDTO, BigDecimal realExchangeRate, CcyAmt ccyAmt) {
-        List<FxRate> fxRatesToSave = new ArrayList<>();
-
-        if ("N/A".equals(fxRateDTO.getBaseCurrency())) {
-            logger.warn("Skipping saving exchange rate due to incorrect currency code");
-            return fxRatesToSave;
-        }
+    private void countRates(String result, int count) {
+        Counter.builder("fx.update.rates")
+                .description("Rates received by data updates, by what the upsert did with them")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(count);
+    }
 
-        FxRate fxRate = new FxRate();
-        String baseCurrencyCode = fxRateDTO.getBaseCurrency();
+    private double getSnapshotAgeSeconds() {
+        Instant updateTime = lastUpdateTime;
+        return updateTime != null ? Duration.between(updateTime, Instant.now()).toMillis() / 1000.0 : Double.NaN;
+    }
 
-        if (baseCurrencyCode == null) {
-            logger.warn("Currency {} not found in the database, skipping saving exchange rate", baseCurrencyCode);
-            return fxRatesToSave;
+    private static <T> T timed(Map<String, Long> timings, String name, Supplier<T> fetch) {
+        long startNanos = System.nanoTime();
+        try {
+            return fetch.get();
+        } finally {
+            timings.put(name, elapsedMillis(startNanos));
         }
-
-        Ccy baseCurrencyEntity = currencyRepository.findByCurrencyCode(baseCurrencyCode);
-
-        fxRate.setFxRateDate(fxRateDTO.getDate());
-        fxRate.setFxRateType(fxRateDTO.getType());
-        fxRate.setBaseCurrency(baseCurrencyEntity);
-
-        fxRate.calculateExchangeRate(realExchangeRate, ccyAmt);
-
-        fxRate.setFxRate(fxRateDTO.getRate());
-        fxRatesToSave.add(fxRate);
-
-        return fxRateRepository.saveAll(fxRatesToSave);
     }
 
-    @Transactional
-    protected void saveCurrencyAmount(FxRate fxRate, FxRateDTO fxRateDTO) {
-        if (fxRateDTO.getCurrencyAmounts() != null && !fxRateDTO.getCurrencyAmounts().isEmpty()) {
-            List<CcyAmt> currencyAmounts = new ArrayList<>();
-            for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
-                CcyAmt currencyAmount = new CcyAmt();
-                currencyAmount.setFxRate(fxRate);
-                String currencyCode = ccyAmtDTO.getTargetCurrency();
-
-                Ccy targetCurrencyEntity = currencyRepository.findByCurrencyCode(currencyCode);
-
-                currencyAmount.setTargetCurrency(targetCurrencyEntity);
-                currencyAmount.setAmount(ccyAmtDTO.getAmount());
-
-                currencyAmounts.add(currencyAmount);
+    private static <T> T getResult(Future<T> future, String description) throws InterruptedException {
+        try {
+            T result = future.get();
+            if (result == null) {
+                throw new IllegalStateException("No " + description + " received");
             }
-            currencyAmountRepository.saveAll(currencyAmounts);
-            logger.info("Saved {} currency amounts for currency: {}", currencyAmounts.size(), fxRate.getFxRateType());
+            return result;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error fetching " + description + ": " + e.getCause().getMessage(), e.getCause());
         }
     }
 
-}
\ No newline at end of file
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+}
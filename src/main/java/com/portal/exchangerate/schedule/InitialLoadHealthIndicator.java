@@ -0,0 +1,29 @@
+package com.portal.exchangerate.schedule;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readiness of the rate data, included in the readiness health group ({@code /actuator/health/readiness}):
+ * out of service until {@link DataUpdateScheduler} has published the first rate snapshot, from the rate archive
+ * or from the web service, up from then on.
+ */
+@Component
+public class InitialLoadHealthIndicator implements HealthIndicator {
+
+    private volatile boolean initialLoadCompleted;
+
+    public void markUp() {
+        initialLoadCompleted = true;
+    }
+
+    public boolean isUp() {
+        return initialLoadCompleted;
+    }
+
+    @Override
+    public Health health() {
+        return initialLoadCompleted ? Health.up().build() : Health.outOfService().withDetail("initialLoad", "pending").build();
+    }
+}
@@ -0,0 +1,283 @@
+package com.portal.exchangerate.service;
+
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.BackfillResultDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.BackfillStatus;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.model.BackfillCheckpoint;
+import com.portal.exchangerate.repository.BackfillCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads historical exchange rates into fx_rates. The requested range is split into chunks aligned to a fixed
+ * grid of {@code fx.rates.backfill.chunk-days}, so repeated or overlapping runs produce the same chunks.
+ * Chunks are fetched in parallel (at most {@code fx.rates.backfill.parallelism} at a time), parsed straight
+ * from the response stream and inserted idempotently. Every finished chunk is recorded in backfill_checkpoint,
+ * so an interrupted backfill resumes with the chunks that are still missing.
+ * <p>
+ * One backfill runs at a time. {@link #startBackfill} runs it in the background and returns at once; its progress,
+ * and the outcome of the last backfill, are available from {@link #getLastBackfill}.
+ */
+@Service
+public class FxRateBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateBackfillService.class);
+
+    private final WebServiceClient webServiceClient;
+    private final XmlDataParser xmlDataParser;
+    private final FxRateIngestService fxRateIngestService;
+    private final BackfillCheckpointRepository backfillCheckpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkDays;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current or last backfill; updated and copied under its own lock
+    private volatile BackfillResultDTO lastBackfill;
+
+    @Autowired
+    public FxRateBackfillService(WebServiceClient webServiceClient, XmlDataParser xmlDataParser,
+                                 FxRateIngestService fxRateIngestService, BackfillCheckpointRepository backfillCheckpointRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${fx.rates.backfill.chunk-days:31}") int chunkDays,
+                                 @Value("${fx.rates.backfill.parallelism:4}") int parallelism) {
+        if (chunkDays < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Backfill chunk days and parallelism must be positive");
+        }
+        this.webServiceClient = webServiceClient;
+        this.xmlDataParser = xmlDataParser;
+        this.fxRateIngestService = fxRateIngestService;
+        this.backfillCheckpointRepository = backfillCheckpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkDays = chunkDays;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Backfills rates of the given type between startDate and endDate (inclusive) and returns the result.
+     *
+     * @param currency currency code to load with getFxRatesForCurrency, or null to load all currencies day by day with getFxRates
+     * @throws IllegalArgumentException if the range is invalid
+     * @throws IllegalStateException    if a backfill is already running
+     */
+    public BackfillResultDTO backfill(ExchangeRateType type, LocalDate startDate, LocalDate endDate, String currency) {
+        BackfillResultDTO result = begin(type, startDate, endDate, currency);
+        run(type, startDate, endDate, currency, result);
+        return copy(result);
+    }
+
+    /**
+     * Starts the same backfill as {@link #backfill} on a virtual thread and returns its initial progress.
+     *
+     * @throws IllegalArgumentException if the range is invalid
+     * @throws IllegalStateException    if a backfill is already running
+     */
+    public BackfillResultDTO startBackfill(ExchangeRateType type, LocalDate startDate, LocalDate endDate, String currency) {
+        BackfillResultDTO result = begin(type, startDate, endDate, currency);
+        BackfillResultDTO initialProgress = copy(result);
+        try {
+            Thread.ofVirtual().name("backfill").start(() -> {
+                try {
+                    run(type, startDate, endDate, currency, result);
+                } catch (RuntimeException e) {
+                    // Already logged and recorded in the result
+                }
+            });
+        } catch (RuntimeException e) {
+            // The backfill never ran, so finish() will not release the guard
+            running.set(false);
+            throw e;
+        }
+        return initialProgress;
+    }
+
+    /**
+     * Returns the progress of the running backfill, or the result of the last one since startup.
+     */
+    public Optional<BackfillResultDTO> getLastBackfill() {
+        BackfillResultDTO result = lastBackfill;
+        return result != null ? Optional.of(copy(result)) : Optional.empty();
+    }
+
+    private BackfillResultDTO begin(ExchangeRateType type, LocalDate startDate, LocalDate endDate, String currency) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Invalid backfill range: " + startDate + " - " + endDate);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A backfill is already running");
+        }
+
+        BackfillResultDTO result = new BackfillResultDTO();
+        result.setType(type.getValue());
+        result.setCurrency(currency);
+        result.setStartDate(startDate);
+        result.setEndDate(endDate);
+        result.setStatus(BackfillStatus.RUNNING);
+        result.setStartedAt(LocalDateTime.now());
+        lastBackfill = result;
+        return result;
+    }
+
+    // Every path out of here goes through finish(), the only place that releases the guard taken in begin()
+    private void run(ExchangeRateType type, LocalDate startDate, LocalDate endDate, String currency, BackfillResultDTO result) {
+        try {
+            logger.info("Backfill of {} rates for {} between {} and {} started", type, currency != null ? currency : "all currencies", startDate, endDate);
+            saveCurrencyList();
+
+            List<Chunk> chunks = splitIntoChunks(startDate, endDate);
+            List<BackfillCheckpoint> checkpoints = backfillCheckpointRepository
+                    .findByFxRateTypeAndChunkStartLessThanEqualAndChunkEndGreaterThanEqual(type.getValue(), endDate, startDate);
+            List<Chunk> pendingChunks = chunks.stream()
+                    .filter(chunk -> !isCompleted(chunk, currency, checkpoints))
+                    .toList();
+
+            synchronized (result) {
+                result.setTotalChunks(chunks.size());
+                result.setSkippedChunks(chunks.size() - pendingChunks.size());
+            }
+            if (!pendingChunks.isEmpty()) {
+                loadChunks(type, currency, pendingChunks, result);
+            }
+            if (copy(result).getInsertedRates() > 0) {
+                eventPublisher.publishEvent(new FxRatesUpdatedEvent("backfill", List.of()));
+            }
+
+            finish(result, BackfillStatus.COMPLETED);
+            logger.info("Backfill of {} rates finished: {}", type, copy(result));
+        } catch (RuntimeException | Error e) {
+            finish(result, BackfillStatus.FAILED);
+            logger.error("Backfill of {} rates between {} and {} failed: {}", type, startDate, endDate, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void finish(BackfillResultDTO result, BackfillStatus status) {
+        // Free the guard before the status is published, so a client seeing the final status can start the next backfill
+        running.set(false);
+        synchronized (result) {
+            result.setStatus(status);
+            result.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private static BackfillResultDTO copy(BackfillResultDTO result) {
+        synchronized (result) {
+            return new BackfillResultDTO(result.getType(), result.getCurrency(), result.getStartDate(), result.getEndDate(),
+                    result.getStatus(), result.getStartedAt(), result.getFinishedAt(), result.getTotalChunks(),
+                    result.getSkippedChunks(), result.getCompletedChunks(), result.getFailedChunks(), result.getInsertedRates());
+        }
+    }
+
+    private void saveCurrencyList() {
+        List<CcyDTO> currencyList = webServiceClient.getCurrencyList(xmlDataParser::parseCurrencyListStream);
+        if (currencyList == null) {
+            throw new IllegalStateException("Currency list could not be loaded");
+        }
+        fxRateIngestService.saveCurrencyList(currencyList);
+    }
+
+    private void loadChunks(ExchangeRateType type, String currency, List<Chunk> chunks, BackfillResultDTO result) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> loadChunk(type, currency, chunk)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    int insertedRates = futures.get(i).get();
+                    synchronized (result) {
+                        result.setInsertedRates(result.getInsertedRates() + insertedRates);
+                        result.setCompletedChunks(result.getCompletedChunks() + 1);
+                    }
+                } catch (ExecutionException e) {
+                    synchronized (result) {
+                        result.setFailedChunks(result.getFailedChunks() + 1);
+                    }
+                    logger.error("Backfill of {} rates between {} and {} failed: {}", type, chunks.get(i).start(), chunks.get(i).end(),
+                            e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Backfill interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int loadChunk(ExchangeRateType type, String currency, Chunk chunk) {
+        List<FxRateDTO> fxRates = new ArrayList<>();
+        if (currency != null) {
+            webServiceClient.getFxRatesForCurrency(type.getValue(), currency, chunk.start(), chunk.end(), inputStream -> {
+                xmlDataParser.parseExchangeRatesStream(inputStream, fxRates::add);
+                return null;
+            });
+        } else {
+            for (LocalDate date = chunk.start(); !date.isAfter(chunk.end()); date = date.plusDays(1)) {
+                webServiceClient.getFxRates(type.getValue(), date, inputStream -> {
+                    xmlDataParser.parseExchangeRatesStream(inputStream, fxRates::add);
+                    return null;
+                });
+            }
+        }
+
+        int insertedRates = fxRateIngestService.saveMissingExchangeRates(fxRates);
+
+        // Today's rates may still change upstream, so a chunk that reaches today is fetched again next time
+        if (chunk.end().isBefore(LocalDate.now())) {
+            BackfillCheckpoint checkpoint = new BackfillCheckpoint();
+            checkpoint.setFxRateType(type.getValue());
+            checkpoint.setCurrencyCode(currency);
+            checkpoint.setChunkStart(chunk.start());
+            checkpoint.setChunkEnd(chunk.end());
+            checkpoint.setRateCount(fxRates.size());
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            backfillCheckpointRepository.save(checkpoint);
+        }
+        return insertedRates;
+    }
+
+    List<Chunk> splitIntoChunks(LocalDate startDate, LocalDate endDate) {
+        List<Chunk> chunks = new ArrayList<>();
+        long gridStart = Math.floorDiv(startDate.toEpochDay(), chunkDays) * chunkDays;
+        for (long chunkStart = gridStart; chunkStart <= endDate.toEpochDay(); chunkStart += chunkDays) {
+            LocalDate start = LocalDate.ofEpochDay(Math.max(chunkStart, startDate.toEpochDay()));
+            LocalDate end = LocalDate.ofEpochDay(Math.min(chunkStart + chunkDays - 1, endDate.toEpochDay()));
+            chunks.add(new Chunk(start, end));
+        }
+        return chunks;
+    }
+
+    // A checkpoint for all currencies also covers any single currency
+    private boolean isCompleted(Chunk chunk, String currency, List<BackfillCheckpoint> checkpoints) {
+        return checkpoints.stream().anyMatch(checkpoint ->
+                (checkpoint.getCurrencyCode() == null || Objects.equals(checkpoint.getCurrencyCode(), currency))
+                        && !checkpoint.getChunkStart().isAfter(chunk.start())
+                        && !checkpoint.getChunkEnd().isBefore(chunk.end()));
+    }
+
+    record Chunk(LocalDate start, LocalDate end) {
+    }
+}
@@ -0,0 +1,309 @@
+package com.portal.exchangerate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.portal.exchangerate.api.SingleFlight;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.snapshot.RateArchive;
+import com.portal.exchangerate.snapshot.RateSeries;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exchange rate history from the web service. Parsed results are kept in a cache bounded by the total number
+ * of cached rates: ranges that ended before today never change and never expire (only LRU eviction removes them),
+ * ranges that reach today or are open-ended expire after {@code fx.rates.history-cache.open-range-ttl}.
+ * On a miss, identical concurrent queries share one upstream call and one parsed result.
+ * Cached rates are held as columnar {@link RateSeries} and materialized as unmodifiable DTO lists per call.
+ * Closed ranges of one currency are also written to the {@link RateArchive} and read back from it after a restart.
+ * <p>
+ * {@link #getFxRatesBetween} serves date ranges of one currency spanning a month or more from whole calendar month
+ * segments, so overlapping user ranges reuse the same cached months and each closed month is fetched from the web
+ * service only once. At most {@code fx.rates.history.max-concurrent-months} months of one range are fetched at a
+ * time, so a cold range of years does not turn into a burst of upstream calls.
+ * <p>
+ * The cache is monitored as the {@code cache.*} meters tagged {@code cache=fxRateHistory}, plus
+ * {@code fx.history.cache.rates}; request coalescing as {@code fx.history.coalescing.calls} (by result),
+ * {@code fx.history.coalescing.waiters} and {@code fx.history.coalescing.in.flight}.
+ */
+@Service
+public class FxRateHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateHistoryService.class);
+
+    // Shorter ranges are fetched as they are: splitting them would download up to two whole months for a few days
+    static final int MIN_MONTH_SPLIT_DAYS = 31;
+
+    public static final String CACHE_NAME = "fxRateHistory";
+
+    private final WebServiceClient webServiceClient;
+    private final XmlDataParser xmlDataParser;
+    private final RateArchive rateArchive;
+    private final Clock clock;
+    private final int maxConcurrentMonths;
+    private final Cache<FxRatesQuery, HistorySegment> historyCache;
+    private final SingleFlight<FxRatesQuery, HistorySegment> upstreamCalls = new SingleFlight<>();
+
+    @Autowired
+    public FxRateHistoryService(WebServiceClient webServiceClient, XmlDataParser xmlDataParser, RateArchive rateArchive,
+                                @Value("${fx.rates.history-cache.max-rates:200000}") long maxCachedRates,
+                                @Value("${fx.rates.history-cache.open-range-ttl:5m}") Duration openRangeTtl,
+                                @Value("${fx.rates.history.max-concurrent-months:4}") int maxConcurrentMonths,
+                                MeterRegistry meterRegistry) {
+        this(webServiceClient, xmlDataParser, rateArchive, maxCachedRates, openRangeTtl, maxConcurrentMonths, meterRegistry,
+                Clock.systemDefaultZone(), Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    FxRateHistoryService(WebServiceClient webServiceClient, XmlDataParser xmlDataParser, RateArchive rateArchive, long maxCachedRates,
+                         Duration openRangeTtl, int maxConcurrentMonths, MeterRegistry meterRegistry, Clock clock, Ticker ticker,
+                         Executor maintenanceExecutor) {
+        this.webServiceClient = webServiceClient;
+        this.xmlDataParser = xmlDataParser;
+        this.rateArchive = rateArchive;
+        this.clock = clock;
+        this.maxConcurrentMonths = Math.max(1, maxConcurrentMonths);
+        this.historyCache = Caffeine.newBuilder()
+                .maximumWeight(maxCachedRates)
+                .weigher((FxRatesQuery query, HistorySegment segment) -> Math.max(1, segment.size()))
+                .expireAfter(new RangeExpiry(openRangeTtl))
+                .ticker(ticker)
+                .executor(maintenanceExecutor)
+                .recordStats()
+                .build();
+        registerMeters(meterRegistry);
+    }
+
+    private void registerMeters(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, historyCache, CACHE_NAME);
+        Gauge.builder("fx.history.cache.rates", historyCache,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Rates held by the history cache, the measure its size is bounded by")
+                .register(meterRegistry);
+
+        registerCoalescingCounter(meterRegistry, "miss", SingleFlight.Stats::misses);
+        registerCoalescingCounter(meterRegistry, "hit", SingleFlight.Stats::hits);
+        Gauge.builder("fx.history.coalescing.waiters", upstreamCalls, calls -> calls.getStats().coalescedWaiters())
+                .description("Callers waiting on an upstream call started by another query")
+                .register(meterRegistry);
+        Gauge.builder("fx.history.coalescing.in.flight", upstreamCalls, calls -> calls.getStats().inFlight())
+                .description("Upstream history calls in flight")
+                .register(meterRegistry);
+    }
+
+    private void registerCoalescingCounter(MeterRegistry meterRegistry, String result, ToLongFunction<SingleFlight.Stats> count) {
+        FunctionCounter.builder("fx.history.coalescing.calls", upstreamCalls, calls -> count.applyAsLong(calls.getStats()))
+                .description("History queries that missed the cache, by whether they started an upstream call (miss) or joined one in flight (hit)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public List<FxRateDTO> getFxRatesForCurrency(String type, String currency, LocalDate startDate, LocalDate endDate) {
+        return join(getFxRatesForCurrencyAsync(type, currency, startDate, endDate));
+    }
+
+    public CompletableFuture<List<FxRateDTO>> getFxRatesForCurrencyAsync(String type, String currency, LocalDate startDate, LocalDate endDate) {
+        return getSegmentAsync(type, currency, startDate, endDate).thenApply(segment -> segment.getFxRates(null, null));
+    }
+
+    /**
+     * Rates between startDate and endDate (inclusive), newest month first as the web service returns them.
+     * A range of one currency spanning at least {@value #MIN_MONTH_SPLIT_DAYS} days is split into calendar months;
+     * every month is requested as a whole (cached and coalesced like any other query) and the segments are trimmed
+     * to the range and stitched together. Other ranges, including all currencies, are requested as they are.
+     */
+    public List<FxRateDTO> getFxRatesBetween(String type, String currency, LocalDate startDate, LocalDate endDate) {
+        return join(getFxRatesBetweenAsync(type, currency, startDate, endDate));
+    }
+
+    public CompletableFuture<List<FxRateDTO>> getFxRatesBetweenAsync(String type, String currency, LocalDate startDate, LocalDate endDate) {
+        if (currency == null || startDate == null || endDate == null
+                || ChronoUnit.DAYS.between(startDate, endDate) < MIN_MONTH_SPLIT_DAYS) {
+            return getFxRatesForCurrencyAsync(type, currency, startDate, endDate);
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(endDate); !month.isBefore(YearMonth.from(startDate)); month = month.minusMonths(1)) {
+            months.add(month);
+        }
+
+        return getMonthSegmentsAsync(type, currency, months)
+                .thenApply(segments -> segments.stream()
+                        .flatMap(segment -> segment.getFxRates(startDate, endDate).stream())
+                        .toList());
+    }
+
+    // Keeps at most maxConcurrentMonths segments in flight, starting the next month as each one completes
+    private CompletableFuture<List<HistorySegment>> getMonthSegmentsAsync(String type, String currency, List<YearMonth> months) {
+        HistorySegment[] segments = new HistorySegment[months.size()];
+        CompletableFuture<List<HistorySegment>> result = new CompletableFuture<>();
+        AtomicInteger nextMonth = new AtomicInteger();
+        AtomicInteger remainingMonths = new AtomicInteger(months.size());
+
+        Runnable fetchNextMonth = new Runnable() {
+            @Override
+            public void run() {
+                int index = nextMonth.getAndIncrement();
+                if (index >= months.size() || result.isDone()) {
+                    return;
+                }
+                YearMonth month = months.get(index);
+                getSegmentAsync(type, currency, month.atDay(1), month.atEndOfMonth()).whenComplete((segment, failure) -> {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                        return;
+                    }
+                    segments[index] = segment;
+                    if (remainingMonths.decrementAndGet() == 0) {
+                        result.complete(Arrays.asList(segments));
+                    } else {
+                        run();
+                    }
+                });
+            }
+        };
+        for (int i = 0; i < Math.min(maxConcurrentMonths, months.size()); i++) {
+            fetchNextMonth.run();
+        }
+        return result;
+    }
+
+    private CompletableFuture<HistorySegment> getSegmentAsync(String type, String currency, LocalDate startDate, LocalDate endDate) {
+        FxRatesQuery query = new FxRatesQuery(type, currency, startDate, endDate, isClosedRange(endDate));
+        HistorySegment cachedSegment = historyCache.getIfPresent(query);
+        if (cachedSegment != null) {
+            return CompletableFuture.completedFuture(cachedSegment);
+        }
+
+        boolean archivable = query.closedRange() && startDate != null && currency != null;
+        if (archivable) {
+            Optional<RateSeries> archivedSeries = rateArchive.getSeries(type, currency, startDate, endDate);
+            if (archivedSeries.isPresent()) {
+                HistorySegment segment = new HistorySegment(List.of(archivedSeries.get()), null);
+                historyCache.put(query, segment);
+                return CompletableFuture.completedFuture(segment);
+            }
+        }
+
+        return upstreamCalls.execute(query, () -> webServiceClient.getFxRatesForCurrencyAsync(type, currency, startDate, endDate, inputStream -> {
+            List<FxRateDTO> fxRates = xmlDataParser.parseExchangeRatesStream(inputStream);
+            if (fxRates == null) {
+                throw new IllegalStateException("Exchange rates for " + query + " could not be parsed");
+            }
+            HistorySegment segment = HistorySegment.of(fxRates);
+            historyCache.put(query, segment);
+            if (archivable && segment.series() != null) {
+                rateArchive.appendRange(type, currency, startDate, endDate, segment.series());
+            }
+            return segment;
+        }));
+    }
+
+    // Ranges reaching today may have been completed by the update, closed ranges are unaffected
+    @EventListener(FxRatesUpdatedEvent.class)
+    public void evictOpenRanges() {
+        historyCache.asMap().keySet().removeIf(query -> !query.closedRange());
+        logger.info("Open history ranges evicted from the cache");
+    }
+
+    void cleanUp() {
+        historyCache.cleanUp();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isClosedRange(LocalDate endDate) {
+        return endDate != null && endDate.isBefore(LocalDate.now(clock));
+    }
+
+    /**
+     * Parameters of one getFxRatesForCurrency call; null currency or dates are passed on as empty parameters.
+     * {@code closedRange} is derived from the end date when the query is made.
+     */
+    public record FxRatesQuery(String type, String currency, LocalDate startDate, LocalDate endDate, boolean closedRange) {
+    }
+
+    /**
+     * Cached result of one query. Rates are kept as columnar {@link RateSeries}; a response with rates that do not
+     * fit that shape is kept as the parsed DTOs.
+     */
+    private record HistorySegment(List<RateSeries> series, List<FxRateDTO> fxRates) {
+
+        static HistorySegment of(List<FxRateDTO> fxRates) {
+            return RateSeries.of(fxRates)
+                    .map(series -> new HistorySegment(series, null))
+                    .orElseGet(() -> new HistorySegment(null, List.copyOf(fxRates)));
+        }
+
+        int size() {
+            return series != null ? series.stream().mapToInt(RateSeries::size).sum() : fxRates.size();
+        }
+
+        // Rates between startDate and endDate (inclusive, null for no bound) in web service order
+        List<FxRateDTO> getFxRates(LocalDate startDate, LocalDate endDate) {
+            if (series == null) {
+                return fxRates.stream()
+                        .filter(fxRate -> startDate == null || (fxRate.getDate() != null && !fxRate.getDate().isBefore(startDate)))
+                        .filter(fxRate -> endDate == null || (fxRate.getDate() != null && !fxRate.getDate().isAfter(endDate)))
+                        .toList();
+            }
+            return series.stream()
+                    .flatMap(rateSeries -> rateSeries.getFxRates(startDate, endDate).stream())
+                    .toList();
+        }
+    }
+
+    private record RangeExpiry(Duration openRangeTtl) implements Expiry<FxRatesQuery, HistorySegment> {
+
+        @Override
+        public long expireAfterCreate(FxRatesQuery query, HistorySegment segment, long currentTime) {
+            return query.closedRange() ? Long.MAX_VALUE : openRangeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(FxRatesQuery query, HistorySegment segment, long currentTime, long currentDuration) {
+            return expireAfterCreate(query, segment, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(FxRatesQuery query, HistorySegment segment, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.portal.exchangerate.service;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.model.Ccy;
+import com.portal.exchangerate.model.CcyAmt;
+import com.portal.exchangerate.model.FxRate;
+import com.portal.exchangerate.repository.CurrencyRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based persistence of parsed web service data. Currency codes are resolved with a single query per call,
+ * rates are upserted on their natural key and all rows are written through Hibernate JDBC batching
+ * (see hibernate.jdbc.batch_size).
+ */
+@Service
+public class FxRateIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateIngestService.class);
+
+    private final CurrencyRepository currencyRepository;
+    private final FxRateRepository fxRateRepository;
+
+    @Autowired
+    public FxRateIngestService(CurrencyRepository currencyRepository, FxRateRepository fxRateRepository) {
+        this.currencyRepository = currencyRepository;
+        this.fxRateRepository = fxRateRepository;
+    }
+
+    /**
+     * @return what the upsert of the rates wrote, see {@link #saveExchangeRates(List)}
+     */
+    @Transactional
+    public UpsertResult saveCurrencyListAndExchangeRates(List<CcyDTO> currencyList, List<FxRateDTO> fxRateDTOList) {
+        Map<String, Ccy> currencies = saveCurrencyList(currencyList);
+        return upsertExchangeRates(fxRateDTOList, currencies);
+    }
+
+    @Transactional
+    public Map<String, Ccy> saveCurrencyList(List<CcyDTO> currencyList) {
+        Set<String> currencyCodes = currencyList.stream()
+                .map(CcyDTO::getCurrencyCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Ccy> currencies = findCurrencies(currencyCodes);
+
+        List<Ccy> currenciesToSave = new ArrayList<>();
+        for (CcyDTO ccyDTO : currencyList) {
+            if (ccyDTO.getCurrencyCode() == null) {
+                logger.warn("Skipping saving currency without currency code");
+                continue;
+            }
+
+            Ccy currency = currencies.computeIfAbsent(ccyDTO.getCurrencyCode(), currencyCode -> {
+                Ccy newCurrency = new Ccy();
+                newCurrency.setCurrencyCode(currencyCode);
+                return newCurrency;
+            });
+            currency.setCurrencyName(ccyDTO.getCurrencyName());
+            currency.setCurrencyNumber(ccyDTO.getCurrencyNumber());
+            currency.setMinorUnits(ccyDTO.getMinorUnits());
+            currenciesToSave.add(currency);
+        }
+
+        currencyRepository.saveAll(currenciesToSave);
+        logger.info("Saved or updated {} currencies", currenciesToSave.size());
+        return currencies;
+    }
+
+    /**
+     * Upserts the rates on their natural key (date, type, base currency, quote currency): new rates are inserted,
+     * stored rates are updated in place only where a value differs, so saving the same rates again writes nothing.
+     * Rates whose base or quote currency is not in the currency list are skipped.
+     *
+     * @return the inserted and updated exchange rates
+     */
+    @Transactional
+    public List<FxRate> saveExchangeRates(List<FxRateDTO> fxRateDTOList) {
+        return upsertExchangeRates(fxRateDTOList, findCurrencies(fxRateDTOList)).writtenFxRates();
+    }
+
+    /**
+     * Variant used by the backfill, which only reports what it added: same upsert as {@link #saveExchangeRates(List)},
+     * so rates already stored, and duplicates within the list, are not inserted again.
+     *
+     * @return the number of exchange rates inserted
+     */
+    @Transactional
+    public int saveMissingExchangeRates(List<FxRateDTO> fxRateDTOList) {
+        return upsertExchangeRates(fxRateDTOList, findCurrencies(fxRateDTOList)).insertedCount();
+    }
+
+    private UpsertResult upsertExchangeRates(List<FxRateDTO> fxRateDTOList, Map<String, Ccy> currencies) {
+        Map<RateKey, FxRate> storedFxRates = findStoredFxRates(fxRateDTOList, currencies);
+        List<FxRate> fxRatesToInsert = new ArrayList<>();
+        Map<RateKey, FxRate> updatedFxRates = new LinkedHashMap<>();
+        int unchangedCount = 0;
+        int currencyAmountCount = 0;
+
+        for (FxRateDTO fxRateDTO : fxRateDTOList) {
+            if ("N/A".equals(fxRateDTO.getBaseCurrency())) {
+                logger.warn("Skipping saving exchange rate due to incorrect currency code");
+                continue;
+            }
+
+            Ccy baseCurrency = fxRateDTO.getBaseCurrency() != null ? currencies.get(fxRateDTO.getBaseCurrency()) : null;
+            if (baseCurrency == null) {
+                logger.warn("Currency {} not found in the database, skipping saving exchange rate", fxRateDTO.getBaseCurrency());
+                continue;
+            }
+
+            // Without a known quote currency the rate has no natural key, and would be inserted again on every run
+            Ccy quoteCurrency = findQuoteCurrency(fxRateDTO, currencies);
+            if (quoteCurrency == null) {
+                logger.warn("No known quote currency for {} rate of {}, skipping saving exchange rate", fxRateDTO.getBaseCurrency(),
+                        fxRateDTO.getDate());
+                continue;
+            }
+
+            RateKey rateKey = new RateKey(fxRateDTO.getDate(), fxRateDTO.getType(), baseCurrency.getCurrencyCode(),
+                    quoteCurrency.getCurrencyCode());
+            FxRate storedFxRate = storedFxRates.get(rateKey);
+
+            if (storedFxRate == null) {
+                FxRate fxRate = new FxRate();
+                fxRate.setFxRateDate(fxRateDTO.getDate());
+                fxRate.setFxRateType(fxRateDTO.getType());
+                fxRate.setBaseCurrency(baseCurrency);
+                fxRate.setQuoteCurrency(quoteCurrency);
+                fxRate.setFxRate(fxRateDTO.getRate());
+                fxRate.setCurrencyAmounts(createCurrencyAmounts(fxRate, fxRateDTO, currencies));
+
+                currencyAmountCount += fxRate.getCurrencyAmounts().size();
+                fxRatesToInsert.add(fxRate);
+                storedFxRates.put(rateKey, fxRate);
+            } else if (updateFxRate(storedFxRate, fxRateDTO, currencies)) {
+                // A rate inserted earlier in this list is written with the insert
+                if (storedFxRate.getId() != null) {
+                    updatedFxRates.put(rateKey, storedFxRate);
+                }
+            } else {
+                unchangedCount++;
+            }
+        }
+
+        List<FxRate> writtenFxRates = new ArrayList<>(fxRateRepository.saveAll(fxRatesToInsert));
+        writtenFxRates.addAll(updatedFxRates.values());
+        logger.info("Inserted {} exchange rates with {} currency amounts, updated {}, {} unchanged",
+                fxRatesToInsert.size(), currencyAmountCount, updatedFxRates.size(), unchangedCount);
+        return new UpsertResult(writtenFxRates, fxRatesToInsert.size(), currencyAmountCount, updatedFxRates.size(), unchangedCount);
+    }
+
+    // Applies changed values to a stored (managed) rate, which Hibernate then flushes as updates; returns whether anything changed
+    private boolean updateFxRate(FxRate storedFxRate, FxRateDTO fxRateDTO, Map<String, Ccy> currencies) {
+        boolean changed = false;
+        if (!sameAmount(storedFxRate.getFxRate(), fxRateDTO.getRate())) {
+            storedFxRate.setFxRate(fxRateDTO.getRate());
+            changed = true;
+        }
+
+        Map<String, CcyAmt> storedAmounts = new HashMap<>();
+        for (CcyAmt storedAmount : storedFxRate.getCurrencyAmounts()) {
+            storedAmounts.put(storedAmount.getTargetCurrency().getCurrencyCode(), storedAmount);
+        }
+        for (CcyAmt currencyAmount : createCurrencyAmounts(storedFxRate, fxRateDTO, currencies)) {
+            CcyAmt storedAmount = storedAmounts.get(currencyAmount.getTargetCurrency().getCurrencyCode());
+            if (storedAmount == null) {
+                storedFxRate.getCurrencyAmounts().add(currencyAmount);
+                changed = true;
+            } else if (!sameAmount(storedAmount.getAmount(), currencyAmount.getAmount())) {
+                storedAmount.setAmount(currencyAmount.getAmount());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Stored DECIMAL(20, 10) values come back with trailing zeros, so values are compared numerically
+    private static boolean sameAmount(BigDecimal storedAmount, BigDecimal amount) {
+        return storedAmount == null ? amount == null : amount != null && storedAmount.compareTo(amount) == 0;
+    }
+
+    /**
+     * Loads the stored rates the list could collide with, with one query per rate type over the date range and
+     * quoted currencies of the list.
+     */
+    private Map<RateKey, FxRate> findStoredFxRates(List<FxRateDTO> fxRateDTOList, Map<String, Ccy> currencies) {
+        Map<String, List<FxRateDTO>> fxRatesByType = fxRateDTOList.stream()
+                .filter(fxRateDTO -> fxRateDTO.getType() != null && fxRateDTO.getDate() != null)
+                .collect(Collectors.groupingBy(FxRateDTO::getType));
+
+        Map<RateKey, FxRate> storedFxRates = new HashMap<>();
+        fxRatesByType.forEach((fxRateType, fxRates) -> {
+            Set<String> quoteCurrencies = new HashSet<>();
+            for (FxRateDTO fxRateDTO : fxRates) {
+                Ccy quoteCurrency = findQuoteCurrency(fxRateDTO, currencies);
+                if (quoteCurrency != null) {
+                    quoteCurrencies.add(quoteCurrency.getCurrencyCode());
+                }
+            }
+            if (quoteCurrencies.isEmpty()) {
+                return;
+            }
+
+            LocalDate startDate = fxRates.stream().map(FxRateDTO::getDate).min(LocalDate::compareTo).orElseThrow();
+            LocalDate endDate = fxRates.stream().map(FxRateDTO::getDate).max(LocalDate::compareTo).orElseThrow();
+            for (FxRate storedFxRate : fxRateRepository.findStoredRates(fxRateType, startDate, endDate, quoteCurrencies)) {
+                storedFxRates.put(new RateKey(storedFxRate.getFxRateDate(), storedFxRate.getFxRateType(),
+                        storedFxRate.getBaseCurrency().getCurrencyCode(), storedFxRate.getQuoteCurrency().getCurrencyCode()), storedFxRate);
+            }
+        });
+        return storedFxRates;
+    }
+
+    // The first known currency amount that is not the base currency
+    private Ccy findQuoteCurrency(FxRateDTO fxRateDTO, Map<String, Ccy> currencies) {
+        if (fxRateDTO.getCurrencyAmounts() == null) {
+            return null;
+        }
+        for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
+            if (ccyAmtDTO.getTargetCurrency() != null && !ccyAmtDTO.getTargetCurrency().equals(fxRateDTO.getBaseCurrency())
+                    && currencies.containsKey(ccyAmtDTO.getTargetCurrency())) {
+                return currencies.get(ccyAmtDTO.getTargetCurrency());
+            }
+        }
+        return null;
+    }
+
+    private List<CcyAmt> createCurrencyAmounts(FxRate fxRate, FxRateDTO fxRateDTO, Map<String, Ccy> currencies) {
+        List<CcyAmt> currencyAmounts = new ArrayList<>();
+        if (fxRateDTO.getCurrencyAmounts() == null) {
+            return currencyAmounts;
+        }
+
+        for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
+            Ccy targetCurrency = ccyAmtDTO.getTargetCurrency() != null ? currencies.get(ccyAmtDTO.getTargetCurrency()) : null;
+            if (targetCurrency == null) {
+                logger.warn("Currency {} not found in the database, skipping saving currency amount", ccyAmtDTO.getTargetCurrency());
+                continue;
+            }
+
+            CcyAmt currencyAmount = new CcyAmt();
+            currencyAmount.setFxRate(fxRate);
+            currencyAmount.setTargetCurrency(targetCurrency);
+            currencyAmount.setAmount(ccyAmtDTO.getAmount());
+            currencyAmounts.add(currencyAmount);
+        }
+        return currencyAmounts;
+    }
+
+    private Map<String, Ccy> findCurrencies(List<FxRateDTO> fxRateDTOList) {
+        Set<String> currencyCodes = new HashSet<>();
+        for (FxRateDTO fxRateDTO : fxRateDTOList) {
+            currencyCodes.add(fxRateDTO.getBaseCurrency());
+            if (fxRateDTO.getCurrencyAmounts() != null) {
+                fxRateDTO.getCurrencyAmounts().forEach(ccyAmtDTO -> currencyCodes.add(ccyAmtDTO.getTargetCurrency()));
+            }
+        }
+        currencyCodes.remove(null);
+        return findCurrencies(currencyCodes);
+    }
+
+    private Map<String, Ccy> findCurrencies(Collection<String> currencyCodes) {
+        if (currencyCodes.isEmpty()) {
+            return new HashMap<>();
+        }
+        return currencyRepository.findByCurrencyCodeIn(currencyCodes).stream()
+                .collect(Collectors.toMap(Ccy::getCurrencyCode, Function.identity(), (first, second) -> first, HashMap::new));
+    }
+
+    // Natural key of a stored rate, see the unique constraint on fx_rates
+    private record RateKey(LocalDate date, String type, String baseCurrency, String quoteCurrency) {
+    }
+
+    /**
+     * Outcome of an upsert: the inserted and updated rates, how many rates and currency amounts were inserted,
+     * and how many rates were updated or left unchanged.
+     */
+    public record UpsertResult(List<FxRate> writtenFxRates, int insertedCount, int insertedCurrencyAmountCount,
+                               int updatedCount, int unchangedCount) {
+    }
+}
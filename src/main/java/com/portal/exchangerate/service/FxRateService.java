@@ -1,6 +1,8 @@
 package com.portal.exchangerate.service;
 
 import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import com.portal.exchangerate.dto.ConversionResultDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
 import com.portal.exchangerate.enums.ExchangeRateType;
 import com.portal.exchangerate.model.Ccy;
@@ -8,6 +10,7 @@ import com.portal.exchangerate.model.Ccy;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface FxRateService {
 
@@ -21,6 +24,10 @@ public interface FxRateService {
 
     BigDecimal calculateCrossRate(String fromCurrency, String toCurrency);
 
+    Map<String, BigDecimal> getCrossRates(String fromCurrency);
+
+    ConversionResultDTO convert(ConversionRequestDTO conversionRequest);
+
     List<CcyDTO> getAllCurrencies();
 
     BigDecimal getFxRate(LocalDate fxRateDate, String fxRateType, Ccy baseCurrency);
@@ -1,25 +1,41 @@
 package com.portal.exchangerate.service;
 
 import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.CcyAmtDTO;
 import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.ConversionDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import com.portal.exchangerate.dto.ConversionResultDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
 import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
 import com.portal.exchangerate.model.Ccy;
+import com.portal.exchangerate.model.CcyAmt;
 import com.portal.exchangerate.model.FxRate;
 import com.portal.exchangerate.repository.CurrencyRepository;
 import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.snapshot.CrossRateMatrix;
+import com.portal.exchangerate.snapshot.FixedPoint;
+import com.portal.exchangerate.snapshot.RateSnapshot;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,18 +43,36 @@ public class FxRateServiceImpl implements FxRateService {
 
     private static final Logger logger = LoggerFactory.getLogger(FxRateServiceImpl.class);
 
+    static final String AVAILABLE_CURRENCIES_CACHE = "availableCurrencies";
+
+    static final int MAX_CONVERSIONS = 10_000;
+    static final int DEFAULT_MINOR_UNITS = 2;
+
+    // Amounts below 10^20 with at most 18 decimals; anything else would make the exact BigDecimal fallback of
+    // FixedPoint.multiply arbitrarily expensive (1e10000000 is a ten-million-digit product)
+    static final int MAX_AMOUNT_PRECISION = 38;
+    static final int MAX_AMOUNT_SCALE = 18;
+    static final int MAX_AMOUNT_INTEGER_DIGITS = 20;
+
     private final XmlDataParser xmlDataParser;
     private final CurrencyRepository currencyRepository;
     private final WebServiceClient webServiceClient;
     private final FxRateRepository fxRateRepository;
+    private final RateSnapshotHolder rateSnapshotHolder;
+    private final FxRateHistoryService fxRateHistoryService;
+
+    private volatile Map<String, Integer> minorUnitsByCurrency;
 
     @Autowired
     public FxRateServiceImpl(XmlDataParser xmlDataParser, CurrencyRepository currencyRepository,
-                             WebServiceClient webServiceClient, FxRateRepository fxRateRepository) {
+                             WebServiceClient webServiceClient, FxRateRepository fxRateRepository,
+                             RateSnapshotHolder rateSnapshotHolder, FxRateHistoryService fxRateHistoryService) {
         this.xmlDataParser = xmlDataParser;
         this.currencyRepository = currencyRepository;
         this.webServiceClient = webServiceClient;
         this.fxRateRepository = fxRateRepository;
+        this.rateSnapshotHolder = rateSnapshotHolder;
+        this.fxRateHistoryService = fxRateHistoryService;
     }
 
     @Override
@@ -81,16 +115,22 @@ public class FxRateServiceImpl implements FxRateService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(AVAILABLE_CURRENCIES_CACHE)
     public List<CcyDTO> getAvailableCurrencies() {
-        Set<String> availableCurrencyCodes = fxRateRepository.findAll().stream()
-                .flatMap(fxRate -> fxRate.getCurrencyAmounts().stream())
-                .map(ccyAmt -> ccyAmt.getTargetCurrency().getCurrencyCode())
-                .collect(Collectors.toSet());
-
-        return currencyRepository.findAll().stream()
-                .filter(ccy -> availableCurrencyCodes.contains(ccy.getCurrencyCode()))
-                .map(ccy -> new CcyDTO(ccy.getCurrencyCode(), ccy.getCurrencyName(), ccy.getCurrencyNumber(), ccy.getMinorUnits()))
-                .collect(Collectors.toList());
+        return currencyRepository.findAvailableCurrencies();
+    }
+
+    // The available currencies only change when new rates are stored
+    @EventListener(FxRatesUpdatedEvent.class)
+    @CacheEvict(value = AVAILABLE_CURRENCIES_CACHE, allEntries = true)
+    public void evictAvailableCurrencies() {
+        logger.info("Available currency cache evicted");
+    }
+
+    // The currency list is stored by the same updates
+    @EventListener(FxRatesUpdatedEvent.class)
+    public void evictMinorUnits() {
+        minorUnitsByCurrency = null;
     }
 
     private CcyDTO convertCurrencyEntityToCcyDTO(Ccy ccy) {
@@ -111,9 +151,19 @@ public class FxRateServiceImpl implements FxRateService {
 
     @Override
     public List<FxRateDTO> getCurrentFxRates(ExchangeRateType exchangeRateType, String rate, String currency) {
+        List<FxRateDTO> snapshotFxRates = getSnapshotCurrentFxRates(exchangeRateType, currency);
+        if (!snapshotFxRates.isEmpty()) {
+            return snapshotFxRates;
+        }
+
+        List<FxRateDTO> storedFxRates = getStoredCurrentFxRates(exchangeRateType, currency);
+        if (!storedFxRates.isEmpty()) {
+            return storedFxRates;
+        }
+
+        logger.info("No stored {} exchange rates found, fetching them from the web service", exchangeRateType);
         try {
-            String fxRatesData = webServiceClient.getFxRatesForCurrency(exchangeRateType.toString(), currency, null, null);
-            List<FxRateDTO> fxRateDTOList = xmlDataParser.parseExchangeRates(fxRatesData);
+            List<FxRateDTO> fxRateDTOList = fxRateHistoryService.getFxRatesForCurrency(exchangeRateType.toString(), currency, null, null);
             return fxRateDTOList;
         } catch (Exception e) {
             logger.error("Error while fetching current exchange rates: {}", e.getMessage());
@@ -121,14 +171,62 @@ public class FxRateServiceImpl implements FxRateService {
         }
     }
 
+    private List<FxRateDTO> getSnapshotCurrentFxRates(ExchangeRateType exchangeRateType, String currency) {
+        RateSnapshot snapshot = rateSnapshotHolder.get();
+        Optional<LocalDate> latestDate = snapshot.getLatestDate(exchangeRateType);
+        if (latestDate.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return snapshot.getFxRates(exchangeRateType, latestDate.get()).stream()
+                .filter(fxRateDTO -> currency == null || fxRateDTO.getCurrencyAmounts().stream()
+                        .anyMatch(ccyAmtDTO -> currency.equals(ccyAmtDTO.getTargetCurrency())))
+                .collect(Collectors.toList());
+    }
+
+    private List<FxRateDTO> getStoredCurrentFxRates(ExchangeRateType exchangeRateType, String currency) {
+        Optional<LocalDate> latestDate = fxRateRepository.findLatestRateDate(exchangeRateType.getValue());
+        if (latestDate.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<FxRate> fxRates = fxRateRepository.findWithCurrencyAmountsByFxRateDateAndFxRateType(
+                latestDate.get(), exchangeRateType.getValue());
+
+        return fxRates.stream()
+                .map(this::convertFxRateEntityToFxRateDTO)
+                .filter(fxRateDTO -> currency == null || fxRateDTO.getCurrencyAmounts().stream()
+                        .anyMatch(ccyAmtDTO -> currency.equals(ccyAmtDTO.getTargetCurrency())))
+                .collect(Collectors.toList());
+    }
+
+    private FxRateDTO convertFxRateEntityToFxRateDTO(FxRate fxRate) {
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(fxRate.getFxRateType());
+        fxRateDTO.setDate(fxRate.getFxRateDate());
+        fxRateDTO.setBaseCurrency(fxRate.getBaseCurrency() != null ? fxRate.getBaseCurrency().getCurrencyCode() : null);
+        fxRateDTO.setRate(fxRate.getFxRate());
+
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        if (fxRate.getCurrencyAmounts() != null) {
+            for (CcyAmt ccyAmt : fxRate.getCurrencyAmounts()) {
+                CcyAmtDTO ccyAmtDTO = new CcyAmtDTO();
+                ccyAmtDTO.setTargetCurrency(ccyAmt.getTargetCurrency().getCurrencyCode());
+                ccyAmtDTO.setAmount(ccyAmt.getAmount());
+                currencyAmounts.add(ccyAmtDTO);
+            }
+        }
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        return fxRateDTO;
+    }
+
     @Override
     public List<FxRateDTO> getFxRates(ExchangeRateType exchangeRateType, String rate, String currency, String startDate, String endDate) {
         try {
             LocalDate startDateObj = LocalDate.parse(startDate);
             LocalDate endDateObj = LocalDate.parse(endDate);
 
-            String fxRatesData = webServiceClient.getFxRatesForCurrency(exchangeRateType.toString(), currency, startDateObj, endDateObj);
-            List<FxRateDTO> fxRateDTOList = xmlDataParser.parseExchangeRates(fxRatesData);
+            List<FxRateDTO> fxRateDTOList = fxRateHistoryService.getFxRatesBetween(exchangeRateType.toString(), currency, startDateObj, endDateObj);
             return fxRateDTOList;
         } catch (Exception e) {
             logger.error("Error while fetching exchange rates: {}", e.getMessage());
@@ -151,9 +249,18 @@ public class FxRateServiceImpl implements FxRateService {
 
     @Override
     public BigDecimal getRateForCurrency(String targetCurrencyCode) {
+        BigDecimal snapshotRate = rateSnapshotHolder.get().getLatestRate(ExchangeRateType.LT, targetCurrencyCode);
+        if (snapshotRate != null) {
+            return snapshotRate;
+        }
+
+        Optional<BigDecimal> storedRate = fxRateRepository.findLatestRate(ExchangeRateType.LT.getValue(), targetCurrencyCode);
+        if (storedRate.isPresent()) {
+            return storedRate.get();
+        }
+
         try {
-            String fxRatesData = webServiceClient.getFxRatesForCurrency(String.valueOf(ExchangeRateType.LT), targetCurrencyCode, null, null);
-            List<FxRateDTO> fxRateDTOList = xmlDataParser.parseExchangeRates(fxRatesData);
+            List<FxRateDTO> fxRateDTOList = fxRateHistoryService.getFxRatesForCurrency(String.valueOf(ExchangeRateType.LT), targetCurrencyCode, null, null);
 
             if (!fxRateDTOList.isEmpty()) {
                 FxRateDTO fxRateDTO = fxRateDTOList.get(0);
@@ -169,11 +276,12 @@ public class FxRateServiceImpl implements FxRateService {
 
     @Override
     public BigDecimal getFxRate(LocalDate fxRateDate, String fxRateType, Ccy baseCurrency) {
-        Optional<Ccy> baseCurrencyOptional = Optional.ofNullable(currencyRepository.findByCurrencyCode(String.valueOf(baseCurrency)));
+        Optional<Ccy> baseCurrencyOptional = Optional.ofNullable(baseCurrency)
+                .map(currency -> currencyRepository.findByCurrencyCode(currency.getCurrencyCode()));
 
         if (baseCurrencyOptional.isPresent()) {
             Ccy baseCurrencyObj = baseCurrencyOptional.get();
-            Optional<FxRate> fxRateOptional = fxRateRepository.findByFxRateTypeAndBaseCurrencyOrderByFxRateDateDesc(ExchangeRateType.valueOf(fxRateType), baseCurrencyObj);
+            Optional<FxRate> fxRateOptional = fxRateRepository.findLatestByFxRateTypeAndBaseCurrency(fxRateType, baseCurrencyObj);
 
             if (fxRateOptional.isPresent()) {
                 return fxRateOptional.get().getFxRate();
@@ -186,6 +294,14 @@ public class FxRateServiceImpl implements FxRateService {
     }
 
     public BigDecimal calculateCrossRate(String fromCurrency, String toCurrency) {
+        CrossRateMatrix crossRates = rateSnapshotHolder.get().getLatestCrossRates(ExchangeRateType.LT);
+        if (crossRates != null) {
+            BigDecimal crossRate = crossRates.getCrossRate(fromCurrency, toCurrency);
+            if (crossRate != null) {
+                return crossRate;
+            }
+        }
+
         if ("EUR".equals(fromCurrency)) {
             return getRateForCurrency(toCurrency);
         } else {
@@ -199,4 +315,104 @@ public class FxRateServiceImpl implements FxRateService {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, BigDecimal> getCrossRates(String fromCurrency) {
+        CrossRateMatrix crossRates = rateSnapshotHolder.get().getLatestCrossRates(ExchangeRateType.LT);
+        if (crossRates == null) {
+            logger.info("No rate snapshot loaded, building cross rates from current exchange rates");
+            crossRates = RateSnapshot.of(0, getCurrentFxRates(ExchangeRateType.LT, null, null))
+                    .getLatestCrossRates(ExchangeRateType.LT);
+        }
+        return crossRates != null ? crossRates.getRow(fromCurrency) : Collections.emptyMap();
+    }
+
+    /**
+     * Converts every requested amount with the latest LT cross rates of one snapshot, so all results are
+     * consistent with each other even while an update publishes a new snapshot. Converted amounts are rounded
+     * half up to the minor units of the target currency; conversions without a rate have neither rate nor amount.
+     */
+    @Override
+    public ConversionResultDTO convert(ConversionRequestDTO conversionRequest) {
+        List<ConversionDTO> conversions = toConversions(conversionRequest);
+
+        RateSnapshot snapshot = rateSnapshotHolder.get();
+        if (snapshot.getLatestCrossRates(ExchangeRateType.LT) == null) {
+            logger.info("No rate snapshot loaded, converting with current exchange rates");
+            snapshot = RateSnapshot.of(0, getCurrentFxRates(ExchangeRateType.LT, null, null));
+        }
+        CrossRateMatrix crossRates = snapshot.getLatestCrossRates(ExchangeRateType.LT);
+        Map<String, Integer> minorUnits = getMinorUnits();
+
+        for (ConversionDTO conversion : conversions) {
+            long crossRate = RateSnapshot.MISSING;
+            if (crossRates != null) {
+                int fromIndex = crossRates.indexOf(conversion.getFrom());
+                int toIndex = crossRates.indexOf(conversion.getTo());
+                if (fromIndex >= 0 && toIndex >= 0) {
+                    crossRate = crossRates.getCrossRateUnscaled(fromIndex, toIndex);
+                }
+            }
+            if (crossRate != RateSnapshot.MISSING) {
+                conversion.setRate(RateSnapshot.toDecimal(crossRate));
+                conversion.setConvertedAmount(FixedPoint.multiply(conversion.getAmount(), crossRate,
+                        minorUnits.getOrDefault(conversion.getTo(), DEFAULT_MINOR_UNITS)));
+            }
+        }
+
+        return new ConversionResultDTO(ExchangeRateType.LT.getValue(), snapshot.getLatestDate(ExchangeRateType.LT).orElse(null),
+                snapshot.getVersion(), conversions);
+    }
+
+    private static List<ConversionDTO> toConversions(ConversionRequestDTO conversionRequest) {
+        List<ConversionDTO> conversions = new ArrayList<>();
+        if (conversionRequest.getConversions() != null) {
+            for (ConversionDTO requested : conversionRequest.getConversions()) {
+                BigDecimal amount = requested.getAmount() != null ? requested.getAmount() : conversionRequest.getAmount();
+                conversions.add(new ConversionDTO(requested.getFrom(), requested.getTo(), amount, null, null));
+            }
+        }
+        if (conversionRequest.getTo() != null) {
+            for (String to : conversionRequest.getTo()) {
+                conversions.add(new ConversionDTO(conversionRequest.getFrom(), to, conversionRequest.getAmount(), null, null));
+            }
+        }
+
+        if (conversions.isEmpty()) {
+            throw new IllegalArgumentException("No conversions requested");
+        }
+        if (conversions.size() > MAX_CONVERSIONS) {
+            throw new IllegalArgumentException("At most " + MAX_CONVERSIONS + " conversions per request, got " + conversions.size());
+        }
+        for (ConversionDTO conversion : conversions) {
+            if (conversion.getFrom() == null || conversion.getTo() == null || conversion.getAmount() == null) {
+                throw new IllegalArgumentException("Every conversion needs a from currency, a to currency and an amount");
+            }
+            BigDecimal amount = conversion.getAmount();
+            if (amount.precision() > MAX_AMOUNT_PRECISION || Math.abs(amount.scale()) > MAX_AMOUNT_SCALE
+                    || amount.precision() - amount.scale() > MAX_AMOUNT_INTEGER_DIGITS) {
+                throw new IllegalArgumentException("Amount out of range: at most " + MAX_AMOUNT_INTEGER_DIGITS
+                        + " integer digits and " + MAX_AMOUNT_SCALE + " decimals");
+            }
+        }
+        return conversions;
+    }
+
+    private Map<String, Integer> getMinorUnits() {
+        Map<String, Integer> minorUnits = minorUnitsByCurrency;
+        if (minorUnits == null) {
+            minorUnits = new HashMap<>();
+            for (Ccy ccy : currencyRepository.findAll()) {
+                try {
+                    if (ccy.getCurrencyCode() != null && ccy.getMinorUnits() != null) {
+                        minorUnits.put(ccy.getCurrencyCode(), Integer.parseInt(ccy.getMinorUnits().trim()));
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring minor units {} of currency {}", ccy.getMinorUnits(), ccy.getCurrencyCode());
+                }
+            }
+            minorUnitsByCurrency = minorUnits;
+        }
+        return minorUnits;
+    }
+}
@@ -0,0 +1,177 @@
+package com.portal.exchangerate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes the latest rates that changed with each data update to Server-Sent Events subscribers as one
+ * {@code rates} event, a JSON array of {@link com.portal.exchangerate.dto.RateChangeDTO}, serialized once for
+ * all of them.
+ * <p>
+ * Publishing never blocks on a subscriber: events are put in a bounded per-subscriber queue that is drained on a
+ * virtual thread. A subscriber that falls {@code fx.rates.push.queue-capacity} events behind loses its queued
+ * events and gets a single {@code resync} event instead, after which it should reload the rates.
+ */
+@Service
+public class FxRateUpdateBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateUpdateBroadcaster.class);
+
+    static final String RATES_EVENT = "rates";
+    static final String RESYNC_EVENT = "resync";
+
+    private static final Set<DataWithMediaType> RESYNC = SseEmitter.event().name(RESYNC_EVENT).data("{}").build();
+
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Counter overflowCounter;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public FxRateUpdateBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   @Value("${fx.rates.push.queue-capacity:16}") int queueCapacity,
+                                   @Value("${fx.rates.push.max-subscribers:1000}") int maxSubscribers,
+                                   @Value("${fx.rates.push.timeout:30m}") Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        Gauge.builder("fx.push.subscribers", subscribers, Set::size)
+                .description("Open rate update subscriptions")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("fx.push.overflows")
+                .description("Subscribers that fell too far behind and were told to resync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription that lasts until {@code fx.rates.push.timeout}, after which clients reconnect.
+     *
+     * @throws IllegalStateException if {@code fx.rates.push.max-subscribers} subscriptions are open
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many subscribers: " + subscribers.size());
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener(FxRatesUpdatedEvent.class)
+    public void onFxRatesUpdated(FxRatesUpdatedEvent event) {
+        if (event.getChanges().isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+
+        Set<DataWithMediaType> ratesEvent;
+        try {
+            ratesEvent = SseEmitter.event()
+                    .name(RATES_EVENT)
+                    .data(objectMapper.writeValueAsString(event.getChanges()), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing rate changes: {}", e.getMessage());
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(ratesEvent);
+        }
+        logger.info("Pushed {} rate changes to {} subscribers", event.getChanges().size(), subscribers.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<DataWithMediaType> sseEvent) {
+            synchronized (this) {
+                if (queue.size() >= queueCapacity) {
+                    queue.clear();
+                    queue.add(RESYNC);
+                    overflowCounter.increment();
+                } else {
+                    queue.add(sseEvent);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        // Only one drain runs per subscriber, so a blocked send delays nobody else
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> sseEvent;
+                synchronized (this) {
+                    sseEvent = queue.poll();
+                    if (sseEvent == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(sseEvent);
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Dropping subscriber: {}", e.getMessage());
+                    subscribers.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
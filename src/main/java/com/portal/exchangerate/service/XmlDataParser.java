@@ -4,25 +4,33 @@ import com.portal.exchangerate.api.WebServiceClient;
 import com.portal.exchangerate.dto.CcyAmtDTO;
 import com.portal.exchangerate.dto.CcyDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
-import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Streaming (StAX) parser for the lb.lt FxRates responses. Elements are read in a single forward pass,
+ * so a response can be parsed straight from the HTTP body without building a DOM.
+ * <p>
+ * Each parse is timed as {@code fx.xml.parse} and its element count recorded as {@code fx.xml.parse.elements}.
+ * When parsing from a stream, the time includes reading the stream and the work of the element consumer.
+ */
 @Service
 public class XmlDataParser {
 
@@ -30,122 +38,251 @@ public class XmlDataParser {
 
     private static final String NAMESPACE_URI = "http://www.lb.lt/WebServices/FxRates";
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
     private final WebServiceClient webServiceClient;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public XmlDataParser(WebServiceClient webServiceClient) {
+    public XmlDataParser(WebServiceClient webServiceClient, MeterRegistry meterRegistry) {
         this.webServiceClient = webServiceClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
     }
 
     public List<CcyDTO> parseCurrencyList(String xmlData) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8)));
-            doc.getDocumentElement().normalize();
+            List<CcyDTO> currencyList = new ArrayList<>();
+            parseCurrencyList(XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlData)), currencyList::add);
+            return currencyList;
+        } catch (Exception e) {
+            logger.error("Error parsing currency list: {}", e.getMessage());
+            return null;
+        }
+    }
 
+    public List<CcyDTO> parseCurrencyListStream(InputStream inputStream) {
+        try {
             List<CcyDTO> currencyList = new ArrayList<>();
+            parseCurrencyList(XML_INPUT_FACTORY.createXMLStreamReader(inputStream), currencyList::add);
+            return currencyList;
+        } catch (Exception e) {
+            logger.error("Error parsing currency list: {}", e.getMessage());
+            return null;
+        }
+    }
 
-            NodeList nodeList = doc.getElementsByTagNameNS(NAMESPACE_URI, "CcyNtry");
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Node node = nodeList.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    String currencyCode = getContentByTagName(element, NAMESPACE_URI, "Ccy");
-                    String currencyName = getContentByTagName(element, NAMESPACE_URI, "CcyNm");
-                    String currencyNumberStr = getContentByTagName(element, NAMESPACE_URI, "CcyNbr");
-                    String minorUnits = getContentByTagName(element, NAMESPACE_URI, "CcyMnrUnts");
-
-                    if (!"N/A".equals(currencyNumberStr)) {
-                        int currencyNumber = Integer.parseInt(currencyNumberStr);
-
-                        CcyDTO ccyDTO = new CcyDTO();
-                        ccyDTO.setCurrencyCode(currencyCode);
-                        ccyDTO.setCurrencyName(currencyName);
-                        ccyDTO.setCurrencyNumber(currencyNumber);
-                        ccyDTO.setMinorUnits(minorUnits);
-                        currencyList.add(ccyDTO);
-                    } else {
-                        logger.info("Currency number is N/A for currency: {}", currencyCode);
+    public List<FxRateDTO> parseExchangeRates(String xmlData) {
+        try {
+            List<FxRateDTO> fxRateDTOList = new ArrayList<>();
+            parseExchangeRates(XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlData)), fxRateDTOList::add);
+            return fxRateDTOList;
+        } catch (Exception e) {
+            logger.error("Error parsing exchange rates: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public List<FxRateDTO> parseExchangeRatesStream(InputStream inputStream) {
+        try {
+            List<FxRateDTO> fxRateDTOList = new ArrayList<>();
+            parseExchangeRates(XML_INPUT_FACTORY.createXMLStreamReader(inputStream), fxRateDTOList::add);
+            return fxRateDTOList;
+        } catch (Exception e) {
+            logger.error("Error parsing exchange rates: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses exchange rates from the stream, handing each {@link FxRateDTO} to the consumer as soon as its
+     * element is closed. Nothing but the current rate is kept in memory.
+     */
+    public void parseExchangeRatesStream(InputStream inputStream, Consumer<FxRateDTO> fxRateConsumer) {
+        try {
+            parseExchangeRates(XML_INPUT_FACTORY.createXMLStreamReader(inputStream), fxRateConsumer);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Error parsing exchange rates", e);
+        }
+    }
+
+    private void parseCurrencyList(XMLStreamReader reader, Consumer<CcyDTO> ccyConsumer) throws XMLStreamException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int elementCount = 0;
+        boolean parsed = false;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && isElement(reader, "CcyNtry")) {
+                    CcyDTO ccyDTO = readCurrency(reader);
+                    if (ccyDTO != null) {
+                        ccyConsumer.accept(ccyDTO);
+                        elementCount++;
                     }
                 }
             }
+            parsed = true;
+        } finally {
+            reader.close();
+            recordParse(sample, "currency_list", parsed, elementCount);
+        }
+    }
+
+    private CcyDTO readCurrency(XMLStreamReader reader) throws XMLStreamException {
+        String currencyCode = null;
+        String currencyName = null;
+        String currencyNumberStr = null;
+        String minorUnits = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && isElement(reader, "CcyNtry")) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT || !NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+                continue;
+            }
+
+            switch (reader.getLocalName()) {
+                case "Ccy" -> currencyCode = firstValue(currencyCode, reader);
+                case "CcyNm" -> currencyName = firstValue(currencyName, reader);
+                case "CcyNbr" -> currencyNumberStr = firstValue(currencyNumberStr, reader);
+                case "CcyMnrUnts" -> minorUnits = firstValue(minorUnits, reader);
+                default -> {
+                }
+            }
+        }
 
-            return currencyList;
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (currencyNumberStr == null || "N/A".equals(currencyNumberStr)) {
+            logger.info("Currency number is N/A for currency: {}", currencyCode);
             return null;
         }
+
+        CcyDTO ccyDTO = new CcyDTO();
+        ccyDTO.setCurrencyCode(currencyCode);
+        ccyDTO.setCurrencyName(currencyName);
+        ccyDTO.setCurrencyNumber(Integer.parseInt(currencyNumberStr));
+        ccyDTO.setMinorUnits(minorUnits);
+        return ccyDTO;
     }
 
-    public List<FxRateDTO> parseExchangeRates(String xmlData) {
+    private void parseExchangeRates(XMLStreamReader reader, Consumer<FxRateDTO> fxRateConsumer) throws XMLStreamException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int elementCount = 0;
+        boolean parsed = false;
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8)));
-            doc.getDocumentElement().normalize();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && isElement(reader, "FxRate")) {
+                    fxRateConsumer.accept(readFxRate(reader));
+                    elementCount++;
+                }
+            }
+            parsed = true;
+        } finally {
+            reader.close();
+            recordParse(sample, "fx_rates", parsed, elementCount);
+        }
+    }
 
-            List<FxRateDTO> fxRateDTOList = new ArrayList<>();
-            NodeList nodeList = doc.getElementsByTagNameNS(NAMESPACE_URI, "FxRate");
-
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Node node = nodeList.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    String date = getContentByTagName(element, NAMESPACE_URI, "Dt");
-                    String type = getContentByTagName(element, NAMESPACE_URI, "Tp");
-
-                    NodeList ccyAmtNodes = element.getElementsByTagNameNS(NAMESPACE_URI, "CcyAmt");
-                    List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
-                    BigDecimal rate = BigDecimal.ZERO;
-
-                    for (int j = 0; j < ccyAmtNodes.getLength(); j++) {
-                        Element ccyAmtElement = (Element) ccyAmtNodes.item(j);
-                        String currency = getContentByTagName(ccyAmtElement, NAMESPACE_URI, "Ccy");
-                        String amountStr = getContentByTagName(ccyAmtElement, NAMESPACE_URI, "Amt");
-
-                        if (currency != null && amountStr != null) {
-                            BigDecimal amount = new BigDecimal(amountStr);
-
-                            CcyAmtDTO ccyAmtDTO = new CcyAmtDTO();
-                            ccyAmtDTO.setAmount(amount);
-                            ccyAmtDTO.setTargetCurrency(currency);
-
-                            if (!currency.equals("EUR")) {
-                                rate = amount;
-                            }
-
-                            currencyAmounts.add(ccyAmtDTO);
-                        } else {
-                            System.out.println("Currency or amount is null");
+    private void recordParse(Timer.Sample sample, String payload, boolean parsed, int elementCount) {
+        String outcome = parsed ? "success" : "failure";
+        sample.stop(Timer.builder("fx.xml.parse")
+                .description("Parsing of FxRates web service responses")
+                .tag("payload", payload)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        DistributionSummary.builder("fx.xml.parse.elements")
+                .description("Currencies or rates read from a FxRates web service response")
+                .tag("payload", payload)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elementCount);
+    }
+
+    private FxRateDTO readFxRate(XMLStreamReader reader) throws XMLStreamException {
+        String date = null;
+        String type = null;
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        BigDecimal rate = BigDecimal.ZERO;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && isElement(reader, "FxRate")) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT || !NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+                continue;
+            }
+
+            switch (reader.getLocalName()) {
+                case "Dt" -> date = firstValue(date, reader);
+                case "Tp" -> type = firstValue(type, reader);
+                case "CcyAmt" -> {
+                    CcyAmtDTO ccyAmtDTO = readCurrencyAmount(reader);
+                    if (ccyAmtDTO != null) {
+                        if (!ccyAmtDTO.getTargetCurrency().equals("EUR")) {
+                            rate = ccyAmtDTO.getAmount();
                         }
+                        currencyAmounts.add(ccyAmtDTO);
                     }
+                }
+                default -> {
+                }
+            }
+        }
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(type);
+        fxRateDTO.setDate(LocalDate.parse(date));
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        fxRateDTO.setRate(rate);
+        return fxRateDTO;
+    }
 
-                    FxRateDTO fxRateDTO = new FxRateDTO();
-                    fxRateDTO.setType(type);
-                    fxRateDTO.setDate(LocalDate.parse(date));
-                    fxRateDTO.setBaseCurrency("EUR");
-                    fxRateDTO.setCurrencyAmounts(currencyAmounts);
-                    fxRateDTO.setRate(rate);
+    private CcyAmtDTO readCurrencyAmount(XMLStreamReader reader) throws XMLStreamException {
+        String currency = null;
+        String amountStr = null;
 
-                    fxRateDTOList.add(fxRateDTO);
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && isElement(reader, "CcyAmt")) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT && NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+                switch (reader.getLocalName()) {
+                    case "Ccy" -> currency = firstValue(currency, reader);
+                    case "Amt" -> amountStr = firstValue(amountStr, reader);
+                    default -> {
+                    }
                 }
             }
+        }
 
-            return fxRateDTOList;
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (currency == null || amountStr == null) {
+            logger.warn("Currency or amount is null");
             return null;
         }
+
+        CcyAmtDTO ccyAmtDTO = new CcyAmtDTO();
+        ccyAmtDTO.setAmount(new BigDecimal(amountStr));
+        ccyAmtDTO.setTargetCurrency(currency);
+        return ccyAmtDTO;
     }
 
-    private String getContentByTagName(Element element, String namespaceURI, String tagName) {
-        NodeList nodeList = element.getElementsByTagNameNS(namespaceURI, tagName);
-        if (nodeList.getLength() > 0) {
-            return nodeList.item(0).getTextContent();
-        }
-        return null;
+    private boolean isElement(XMLStreamReader reader, String localName) {
+        return localName.equals(reader.getLocalName()) && NAMESPACE_URI.equals(reader.getNamespaceURI());
+    }
+
+    private String firstValue(String currentValue, XMLStreamReader reader) throws XMLStreamException {
+        String text = reader.getElementText();
+        return currentValue != null ? currentValue : text;
     }
-}
\ No newline at end of file
+}
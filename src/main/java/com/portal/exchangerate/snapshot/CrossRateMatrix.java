@@ -0,0 +1,89 @@
+package com.portal.exchangerate.snapshot;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * N×N cross rates for one rate type and date, computed once when the snapshot is built.
+ * Cell (from, to) holds the amount of {@code to} for one unit of {@code from}, scaled like {@link RateSnapshot}.
+ */
+public final class CrossRateMatrix {
+
+    private final String[] currencyCodes;
+    private final Map<String, Integer> currencyIndex;
+    private final long[] crossRates;
+
+    private CrossRateMatrix(String[] currencyCodes, Map<String, Integer> currencyIndex, long[] crossRates) {
+        this.currencyCodes = currencyCodes;
+        this.currencyIndex = currencyIndex;
+        this.crossRates = crossRates;
+    }
+
+    static CrossRateMatrix of(String[] currencyCodes, Map<String, Integer> currencyIndex, long[] rates) {
+        int size = currencyCodes.length;
+        long[] crossRates = new long[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                crossRates[from * size + to] = crossRate(rates[from], rates[to]);
+            }
+        }
+        return new CrossRateMatrix(currencyCodes, currencyIndex, crossRates);
+    }
+
+    private static long crossRate(long fromRate, long toRate) {
+        if (fromRate == RateSnapshot.MISSING || fromRate == 0 || toRate == RateSnapshot.MISSING) {
+            return RateSnapshot.MISSING;
+        }
+        try {
+            return FixedPoint.divide(toRate, fromRate);
+        } catch (ArithmeticException e) {
+            return RateSnapshot.MISSING;
+        }
+    }
+
+    public int size() {
+        return currencyCodes.length;
+    }
+
+    public int indexOf(String currencyCode) {
+        Integer index = currencyIndex.get(currencyCode);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the scaled cross rate, or {@link RateSnapshot#MISSING} if either currency has no rate.
+     */
+    public long getCrossRateUnscaled(int fromIndex, int toIndex) {
+        return crossRates[fromIndex * currencyCodes.length + toIndex];
+    }
+
+    public BigDecimal getCrossRate(String fromCurrency, String toCurrency) {
+        int fromIndex = indexOf(fromCurrency);
+        int toIndex = indexOf(toCurrency);
+        if (fromIndex < 0 || toIndex < 0) {
+            return null;
+        }
+        return RateSnapshot.toDecimal(getCrossRateUnscaled(fromIndex, toIndex));
+    }
+
+    /**
+     * Returns every available cross rate from {@code fromCurrency}, keyed by target currency code.
+     */
+    public Map<String, BigDecimal> getRow(String fromCurrency) {
+        int fromIndex = indexOf(fromCurrency);
+        if (fromIndex < 0) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, BigDecimal> row = new LinkedHashMap<>();
+        for (int toIndex = 0; toIndex < currencyCodes.length; toIndex++) {
+            long crossRate = getCrossRateUnscaled(fromIndex, toIndex);
+            if (crossRate != RateSnapshot.MISSING) {
+                row.put(currencyCodes[toIndex], RateSnapshot.toDecimal(crossRate));
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,130 @@
+package com.portal.exchangerate.snapshot;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Rate arithmetic on longs scaled like {@link RateSnapshot} (DECIMAL(20,10)), with results identical to the
+ * {@link BigDecimal} computations they replace:
+ * <ul>
+ *     <li>{@link #divide}: {@code to.divide(from, MathContext.DECIMAL128).setScale(10, RoundingMode.HALF_UP)}</li>
+ *     <li>{@link #multiply}: {@code amount.multiply(rate).setScale(scale, RoundingMode.HALF_UP)}</li>
+ * </ul>
+ * The exact 128-bit product or dividend is divided by a 64-bit divisor and rounded half up once. Operands for which
+ * that could differ from the {@code BigDecimal} result (DECIMAL128 rounds the quotient to 34 digits first, which
+ * can move it onto a tie) or whose result does not fit a long fall back to {@code BigDecimal}; for any realistic
+ * rate the fast path never allocates.
+ */
+public final class FixedPoint {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final long ONE = POWERS_OF_TEN[RateSnapshot.SCALE];
+
+    // Below these bounds the distance of an exact quotient from a tie, at least 1 / (2 * divisor), is larger than
+    // a DECIMAL128 ulp of the quotient, so rounding to 34 digits first cannot change the half-up result
+    private static final long MAX_EXACT_DIVISOR = POWERS_OF_TEN[16];
+    private static final long MAX_EXACT_QUOTIENT = POWERS_OF_TEN[17];
+
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Returns {@code dividend / divisor}, both scaled by 10^{@value RateSnapshot#SCALE}, with the same scale.
+     *
+     * @throws ArithmeticException if the divisor is zero or the quotient does not fit a scaled long
+     */
+    public static long divide(long dividend, long divisor) {
+        if (dividend >= 0 && divisor > 0 && divisor < MAX_EXACT_DIVISOR) {
+            long high = Math.multiplyHigh(dividend, ONE);
+            long low = dividend * ONE;
+            if (high < divisor) {
+                long quotient = divideUnsigned(high, low, divisor);
+                long remainder = low - quotient * divisor;
+                if (quotient >= 0 && quotient < MAX_EXACT_QUOTIENT) {
+                    return remainder >= divisor - remainder ? quotient + 1 : quotient;
+                }
+            }
+        }
+        return RateSnapshot.toUnscaled(BigDecimal.valueOf(dividend, RateSnapshot.SCALE)
+                .divide(BigDecimal.valueOf(divisor, RateSnapshot.SCALE), MathContext.DECIMAL128)
+                .setScale(RateSnapshot.SCALE, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Returns {@code amount} times the rate scaled by 10^{@value RateSnapshot#SCALE}, rounded half up to
+     * {@code scale} decimals.
+     */
+    public static BigDecimal multiply(BigDecimal amount, long rate, int scale) {
+        int shift = amount.scale() + RateSnapshot.SCALE - scale;
+        if (rate >= 0 && shift > 0 && shift < POWERS_OF_TEN.length && amount.precision() < 19) {
+            long unscaledAmount = amount.unscaledValue().longValue();
+            long magnitude = Math.abs(unscaledAmount);
+            long divisor = POWERS_OF_TEN[shift];
+            long high = Math.multiplyHigh(magnitude, rate);
+            long low = magnitude * rate;
+            if (high < divisor) {
+                long quotient = divideUnsigned(high, low, divisor);
+                long remainder = low - quotient * divisor;
+                if (quotient >= 0 && remainder >= divisor - remainder) {
+                    quotient++;
+                }
+                if (quotient >= 0) {
+                    return BigDecimal.valueOf(unscaledAmount < 0 ? -quotient : quotient, scale);
+                }
+            }
+        }
+        return amount.multiply(BigDecimal.valueOf(rate, RateSnapshot.SCALE)).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Divides the unsigned 128-bit value {@code high:low} by {@code divisor} ({@code 0 <= high < divisor}) and
+     * returns the 64-bit quotient; long division in base 2^32 (Hacker's Delight, divlu).
+     */
+    static long divideUnsigned(long high, long low, long divisor) {
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long normalizedDivisor = divisor << shift;
+        long divisorHigh = normalizedDivisor >>> 32;
+        long divisorLow = normalizedDivisor & LOW_MASK;
+
+        long numerator = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long normalizedLow = low << shift;
+        long numeratorHigh = normalizedLow >>> 32;
+        long numeratorLow = normalizedLow & LOW_MASK;
+
+        long quotientHigh = Long.divideUnsigned(numerator, divisorHigh);
+        long remainder = numerator - quotientHigh * divisorHigh;
+        while (quotientHigh > LOW_MASK
+                || Long.compareUnsigned(quotientHigh * divisorLow, (remainder << 32) | numeratorHigh) > 0) {
+            quotientHigh--;
+            remainder += divisorHigh;
+            if (remainder > LOW_MASK) {
+                break;
+            }
+        }
+
+        long partial = (numerator << 32) + numeratorHigh - quotientHigh * normalizedDivisor;
+        long quotientLow = Long.divideUnsigned(partial, divisorHigh);
+        remainder = partial - quotientLow * divisorHigh;
+        while (quotientLow > LOW_MASK
+                || Long.compareUnsigned(quotientLow * divisorLow, (remainder << 32) | numeratorLow) > 0) {
+            quotientLow--;
+            remainder += divisorHigh;
+            if (remainder > LOW_MASK) {
+                break;
+            }
+        }
+
+        return (quotientHigh << 32) + quotientLow;
+    }
+}
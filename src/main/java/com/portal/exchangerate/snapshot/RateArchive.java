@@ -0,0 +1,435 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Append-only binary archive of the rates the service has loaded, memory-mapped at boot so the latest rates and
+ * already fetched history can be served before the first web service call completes.
+ * <p>
+ * The file is an 8 byte header followed by fixed 16 byte records: {@code [kind << 4 | type][currency, 3 ASCII bytes]
+ * [epoch day, int][value, long]}. A rate record holds the rate scaled by 10^{@value RateSnapshot#SCALE}; a coverage
+ * record marks the closed range from its epoch day to the day in its value as completely archived for one
+ * (type, currency). A later rate for the same day replaces an earlier one. The index by (type, currency) and epoch
+ * day is built from the records when the file is opened and extended on every append; rates are read straight
+ * from the mapping. An incomplete last record (an interrupted append) is truncated on open.
+ * Archiving is disabled when {@code fx.rates.archive.path} is empty.
+ */
+@Component
+public class RateArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateArchive.class);
+
+    static final int MAGIC = 0x46585241; // "FXRA"
+    static final short FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 16;
+
+    private static final int RATE_RECORD = 0;
+    private static final int COVERAGE_RECORD = 1;
+    private static final ExchangeRateType[] TYPES = ExchangeRateType.values();
+
+    private final Path path;
+    private volatile FileChannel channel;
+    private volatile View view = View.EMPTY;
+
+    @Autowired
+    public RateArchive(@Value("${fx.rates.archive.path:}") String path) {
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+        if (this.path != null) {
+            open();
+        }
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    public long getRecordCount() {
+        return view.recordCount;
+    }
+
+    /**
+     * Rates of every type on the latest day archived for that type, shaped like the web service returns them.
+     */
+    public List<FxRateDTO> getLatestFxRates() {
+        View current = view;
+        SortedMap<SeriesKey, SeriesIndex> sortedIndex = new TreeMap<>(current.index);
+        List<FxRateDTO> fxRates = new ArrayList<>();
+        for (ExchangeRateType type : TYPES) {
+            int latestDay = Integer.MIN_VALUE;
+            for (Map.Entry<SeriesKey, SeriesIndex> entry : sortedIndex.entrySet()) {
+                if (entry.getKey().type() == type.ordinal() && entry.getValue().epochDays.length > 0) {
+                    latestDay = Math.max(latestDay, entry.getValue().lastEpochDay());
+                }
+            }
+            if (latestDay == Integer.MIN_VALUE) {
+                continue;
+            }
+
+            LocalDate date = LocalDate.ofEpochDay(latestDay);
+            int day = latestDay;
+            sortedIndex.forEach((key, series) -> {
+                int index = Arrays.binarySearch(series.epochDays, day);
+                if (key.type() == type.ordinal() && index >= 0) {
+                    fxRates.add(RateSnapshot.toFxRateDTO(type.getValue(), date, key.currencyCode(),
+                            RateSnapshot.toDecimal(current.rateAt(series.recordIndexes[index]))));
+                }
+            });
+        }
+        return fxRates;
+    }
+
+    /**
+     * Rates of one (type, currency) between startDate and endDate (inclusive), present only if a single archived
+     * range covers the whole request.
+     */
+    public Optional<RateSeries> getSeries(String type, String currencyCode, LocalDate startDate, LocalDate endDate) {
+        SeriesKey key = SeriesKey.of(type, currencyCode);
+        if (key == null || startDate == null || endDate == null) {
+            return Optional.empty();
+        }
+        View current = view;
+        SeriesIndex series = current.index.get(key);
+        if (series == null || !series.covers(Math.toIntExact(startDate.toEpochDay()), Math.toIntExact(endDate.toEpochDay()))) {
+            return Optional.empty();
+        }
+
+        int from = series.lowerBound(startDate.toEpochDay());
+        int to = series.lowerBound(endDate.toEpochDay() + 1);
+        int[] epochDays = Arrays.copyOfRange(series.epochDays, from, to);
+        long[] rates = new long[epochDays.length];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = current.rateAt(series.recordIndexes[from + i]);
+        }
+        return Optional.of(new RateSeries(type, currencyCode, epochDays, rates));
+    }
+
+    /**
+     * Appends the rates that are not archived with the same value yet.
+     *
+     * @return the number of rate records written
+     */
+    public int append(Collection<FxRateDTO> fxRates) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        Optional<List<RateSeries>> series = RateSeries.of(fxRates);
+        if (series.isEmpty()) {
+            logger.warn("Rates not archived: not every rate is a quote of one {}", RateSnapshot.BASE_CURRENCY);
+            return 0;
+        }
+        return write(series.get(), null, 0, 0);
+    }
+
+    /**
+     * Appends the rates of one (type, currency) and marks the closed range between startDate and endDate as completely
+     * archived, so later requests within it are answered from the archive.
+     */
+    public void appendRange(String type, String currencyCode, LocalDate startDate, LocalDate endDate, List<RateSeries> series) {
+        SeriesKey key = SeriesKey.of(type, currencyCode);
+        if (!isEnabled() || key == null) {
+            return;
+        }
+        List<RateSeries> rangeSeries = series.stream()
+                .filter(rateSeries -> key.equals(SeriesKey.of(rateSeries.getType(), rateSeries.getCurrencyCode())))
+                .toList();
+        write(rangeSeries, key, Math.toIntExact(startDate.toEpochDay()), Math.toIntExact(endDate.toEpochDay()));
+        logger.debug("Archived {} {} rates between {} and {}", type, currencyCode, startDate, endDate);
+    }
+
+    // Writes the changed rates of the series, then the coverage record if coverageKey is given
+    private synchronized int write(List<RateSeries> series, SeriesKey coverageKey, int coverageStart, int coverageEnd) {
+        if (channel == null) {
+            return 0;
+        }
+        View current = view;
+        ByteBuffer records = ByteBuffer.allocate(RECORD_SIZE * (series.stream().mapToInt(RateSeries::size).sum() + 1));
+        int rateRecords = 0;
+
+        for (RateSeries rateSeries : series) {
+            SeriesKey key = SeriesKey.of(rateSeries.getType(), rateSeries.getCurrencyCode());
+            if (key == null) {
+                continue;
+            }
+            for (int i = 0; i < rateSeries.size(); i++) {
+                if (current.getRateUnscaled(key, rateSeries.epochDayAt(i)) != rateSeries.rateAt(i)) {
+                    putRecord(records, RATE_RECORD, key, rateSeries.epochDayAt(i), rateSeries.rateAt(i));
+                    rateRecords++;
+                }
+            }
+        }
+        if (coverageKey != null) {
+            putRecord(records, COVERAGE_RECORD, coverageKey, coverageStart, coverageEnd);
+        }
+        if (records.position() == 0) {
+            return 0;
+        }
+
+        records.flip();
+        try {
+            long start = channel.size();
+            long position = start;
+            while (records.hasRemaining()) {
+                position += channel.write(records, position);
+            }
+            channel.force(false);
+            view = current.extend(map(position), start, position);
+        } catch (IOException e) {
+            logger.error("Rates could not be archived to {}: {}", path, e.getMessage());
+            return 0;
+        }
+        return rateRecords;
+    }
+
+    private void open() {
+        long startNanos = System.nanoTime();
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            long size = channel.size();
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) RECORD_SIZE).flip();
+                channel.write(header, 0);
+                channel.force(false);
+                size = HEADER_SIZE;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getShort() != FORMAT_VERSION
+                        || header.getShort() != RECORD_SIZE) {
+                    throw new IOException("not a rate archive of format version " + FORMAT_VERSION);
+                }
+            }
+
+            long complete = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+            if (complete != size) {
+                logger.warn("Rate archive {} ends with an incomplete record, truncating it", path);
+                channel.truncate(complete);
+            }
+
+            view = View.EMPTY.extend(map(complete), HEADER_SIZE, complete);
+            logger.info("Rate archive {} mapped: {} records in {} ms", path, view.recordCount, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException e) {
+            logger.error("Rate archive {} could not be opened, archiving is disabled: {}", path, e.getMessage());
+            close();
+        }
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Rate archive {} could not be closed: {}", path, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private static void putRecord(ByteBuffer records, int kind, SeriesKey key, int epochDay, long value) {
+        records.put((byte) (kind << 4 | key.type()))
+                .put(key.currencyCode().getBytes(StandardCharsets.US_ASCII))
+                .putInt(epochDay)
+                .putLong(value);
+    }
+
+    private record SeriesKey(int type, String currencyCode) implements Comparable<SeriesKey> {
+
+        static SeriesKey of(String type, String currencyCode) {
+            if (currencyCode == null || currencyCode.length() != 3 || !StandardCharsets.US_ASCII.newEncoder().canEncode(currencyCode)) {
+                return null;
+            }
+            for (ExchangeRateType exchangeRateType : TYPES) {
+                if (exchangeRateType.getValue().equals(type)) {
+                    return new SeriesKey(exchangeRateType.ordinal(), currencyCode);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public int compareTo(SeriesKey other) {
+            int comparison = Integer.compare(type, other.type);
+            return comparison != 0 ? comparison : currencyCode.compareTo(other.currencyCode);
+        }
+    }
+
+    /**
+     * Archived days of one (type, currency), ascending, with the index of the record holding each day's rate,
+     * and the archived ranges.
+     */
+    private record SeriesIndex(int[] epochDays, int[] recordIndexes, int[] coverageStarts, int[] coverageEnds) {
+
+        private static final SeriesIndex EMPTY = new SeriesIndex(new int[0], new int[0], new int[0], new int[0]);
+
+        int lastEpochDay() {
+            return epochDays[epochDays.length - 1];
+        }
+
+        boolean covers(int startDay, int endDay) {
+            for (int i = 0; i < coverageStarts.length; i++) {
+                if (coverageStarts[i] <= startDay && coverageEnds[i] >= endDay) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int lowerBound(long epochDay) {
+            int low = 0;
+            int high = epochDays.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[mid] < epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Days and record indexes are packed into sortable longs; for a repeated day the later record wins
+        SeriesIndex merge(long[] newRates, int newRateCount, int[] newCoverage, int newCoverageCount) {
+            long[] packed = new long[epochDays.length + newRateCount];
+            for (int i = 0; i < epochDays.length; i++) {
+                packed[i] = (long) epochDays[i] << 32 | recordIndexes[i];
+            }
+            System.arraycopy(newRates, 0, packed, epochDays.length, newRateCount);
+            Arrays.sort(packed);
+
+            int[] mergedDays = new int[packed.length];
+            int[] mergedIndexes = new int[packed.length];
+            int count = 0;
+            for (long entry : packed) {
+                int epochDay = (int) (entry >> 32);
+                if (count > 0 && mergedDays[count - 1] == epochDay) {
+                    count--;
+                }
+                mergedDays[count] = epochDay;
+                mergedIndexes[count] = (int) entry;
+                count++;
+            }
+
+            int[] starts = Arrays.copyOf(coverageStarts, coverageStarts.length + newCoverageCount);
+            int[] ends = Arrays.copyOf(coverageEnds, coverageEnds.length + newCoverageCount);
+            for (int i = 0; i < newCoverageCount; i++) {
+                starts[coverageStarts.length + i] = newCoverage[2 * i];
+                ends[coverageEnds.length + i] = newCoverage[2 * i + 1];
+            }
+            return new SeriesIndex(Arrays.copyOf(mergedDays, count), Arrays.copyOf(mergedIndexes, count), starts, ends);
+        }
+    }
+
+    /**
+     * Immutable state published to readers: the mapping of the file and the index over it.
+     */
+    private static final class View {
+
+        private static final View EMPTY = new View(null, Map.of(), 0);
+
+        private final MappedByteBuffer buffer;
+        private final Map<SeriesKey, SeriesIndex> index;
+        private final long recordCount;
+
+        private View(MappedByteBuffer buffer, Map<SeriesKey, SeriesIndex> index, long recordCount) {
+            this.buffer = buffer;
+            this.index = index;
+            this.recordCount = recordCount;
+        }
+
+        long rateAt(int recordIndex) {
+            return buffer.getLong(HEADER_SIZE + recordIndex * RECORD_SIZE + 8);
+        }
+
+        long getRateUnscaled(SeriesKey key, int epochDay) {
+            SeriesIndex series = index.get(key);
+            if (series == null) {
+                return RateSnapshot.MISSING;
+            }
+            int position = Arrays.binarySearch(series.epochDays, epochDay);
+            return position >= 0 ? rateAt(series.recordIndexes[position]) : RateSnapshot.MISSING;
+        }
+
+        // Indexes the records between start and end (byte offsets) on top of this view
+        View extend(MappedByteBuffer newBuffer, long start, long end) {
+            Map<SeriesKey, Pending> pending = new HashMap<>();
+            byte[] currency = new byte[3];
+            int firstRecord = (int) ((start - HEADER_SIZE) / RECORD_SIZE);
+            for (long offset = start; offset < end; offset += RECORD_SIZE) {
+                int kindAndType = newBuffer.get((int) offset);
+                int type = kindAndType & 0x0f;
+                if (type >= TYPES.length) {
+                    continue;
+                }
+                newBuffer.get((int) offset + 1, currency);
+                SeriesKey key = new SeriesKey(type, new String(currency, StandardCharsets.US_ASCII));
+                int epochDay = newBuffer.getInt((int) offset + 4);
+                Pending series = pending.computeIfAbsent(key, ignored -> new Pending());
+                switch (kindAndType >> 4) {
+                    case RATE_RECORD -> series.addRate(epochDay, firstRecord + (int) ((offset - start) / RECORD_SIZE));
+                    case COVERAGE_RECORD -> series.addCoverage(epochDay, (int) newBuffer.getLong((int) offset + 8));
+                    default -> {
+                    }
+                }
+            }
+
+            Map<SeriesKey, SeriesIndex> newIndex = new HashMap<>(index);
+            pending.forEach((key, series) -> newIndex.put(key, index.getOrDefault(key, SeriesIndex.EMPTY)
+                    .merge(series.rates, series.rateCount, series.coverage, series.coverageCount)));
+            return new View(newBuffer, Collections.unmodifiableMap(newIndex), (end - HEADER_SIZE) / RECORD_SIZE);
+        }
+    }
+
+    private static final class Pending {
+
+        private long[] rates = new long[16];
+        private int rateCount;
+        private int[] coverage = new int[2];
+        private int coverageCount;
+
+        private void addRate(int epochDay, int recordIndex) {
+            if (rateCount == rates.length) {
+                rates = Arrays.copyOf(rates, rateCount * 2);
+            }
+            rates[rateCount++] = (long) epochDay << 32 | recordIndex;
+        }
+
+        private void addCoverage(int startDay, int endDay) {
+            if (2 * coverageCount == coverage.length) {
+                coverage = Arrays.copyOf(coverage, coverage.length * 2);
+            }
+            coverage[2 * coverageCount] = startDay;
+            coverage[2 * coverageCount + 1] = endDay;
+            coverageCount++;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Immutable, columnar rate history of one (type, currency): ascending epoch days in an {@code int[]} and the
+ * rates scaled by 10^{@value RateSnapshot#SCALE} in a parallel {@code long[]}, 12 bytes per day instead of
+ * the half a dozen objects of an {@link FxRateDTO}. Ranges are located with a binary search and only the
+ * requested days are materialized as DTOs.
+ */
+public final class RateSeries {
+
+    private final String type;
+    private final String currencyCode;
+    private final int[] epochDays;
+    private final long[] rates;
+
+    RateSeries(String type, String currencyCode, int[] epochDays, long[] rates) {
+        this.type = type;
+        this.currencyCode = currencyCode;
+        this.epochDays = epochDays;
+        this.rates = rates;
+    }
+
+    /**
+     * Splits web service rates into one series per (type, currency), in the order the currencies first appear.
+     * A later rate for the same day replaces an earlier one.
+     *
+     * @return the series, or empty if a rate is not a quote of one base currency unit that fits the scale
+     */
+    public static Optional<List<RateSeries>> of(Collection<FxRateDTO> fxRates) {
+        Map<List<String>, Builder> builders = new LinkedHashMap<>();
+        for (FxRateDTO fxRateDTO : fxRates) {
+            CcyAmtDTO targetAmount = findTargetAmount(fxRateDTO);
+            if (targetAmount == null) {
+                return Optional.empty();
+            }
+
+            long rate;
+            try {
+                rate = RateSnapshot.toUnscaled(targetAmount.getAmount());
+            } catch (ArithmeticException e) {
+                return Optional.empty();
+            }
+            builders.computeIfAbsent(List.of(fxRateDTO.getType(), targetAmount.getTargetCurrency()), key -> new Builder())
+                    .add(Math.toIntExact(fxRateDTO.getDate().toEpochDay()), rate);
+        }
+
+        List<RateSeries> series = new ArrayList<>(builders.size());
+        builders.forEach((key, builder) -> series.add(builder.build(key.get(0), key.get(1))));
+        return Optional.of(series);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    int epochDayAt(int index) {
+        return epochDays[index];
+    }
+
+    long rateAt(int index) {
+        return rates[index];
+    }
+
+    /**
+     * Returns the rate scaled by 10^{@value RateSnapshot#SCALE}, or {@link RateSnapshot#MISSING} if there is no rate for the date.
+     */
+    public long getRateUnscaled(LocalDate date) {
+        int index = Arrays.binarySearch(epochDays, Math.toIntExact(date.toEpochDay()));
+        return index >= 0 ? rates[index] : RateSnapshot.MISSING;
+    }
+
+    public BigDecimal getRate(LocalDate date) {
+        return RateSnapshot.toDecimal(getRateUnscaled(date));
+    }
+
+    /**
+     * Materializes the rates between startDate and endDate (inclusive, null for no bound), newest first
+     * as the web service returns them.
+     */
+    public List<FxRateDTO> getFxRates(LocalDate startDate, LocalDate endDate) {
+        int from = startDate != null ? lowerBound(startDate.toEpochDay()) : 0;
+        int to = endDate != null ? lowerBound(endDate.toEpochDay() + 1) : epochDays.length;
+
+        List<FxRateDTO> fxRateDTOList = new ArrayList<>(Math.max(0, to - from));
+        for (int i = to - 1; i >= from; i--) {
+            fxRateDTOList.add(RateSnapshot.toFxRateDTO(type, LocalDate.ofEpochDay(epochDays[i]), currencyCode,
+                    RateSnapshot.toDecimal(rates[i])));
+        }
+        return fxRateDTOList;
+    }
+
+    // Index of the first day on or after epochDay
+    private int lowerBound(long epochDay) {
+        int low = 0;
+        int high = epochDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static CcyAmtDTO findTargetAmount(FxRateDTO fxRateDTO) {
+        if (fxRateDTO.getType() == null || fxRateDTO.getDate() == null
+                || !RateSnapshot.BASE_CURRENCY.equals(fxRateDTO.getBaseCurrency())
+                || fxRateDTO.getCurrencyAmounts() == null || fxRateDTO.getCurrencyAmounts().size() != 2) {
+            return null;
+        }
+
+        CcyAmtDTO baseAmount = fxRateDTO.getCurrencyAmounts().get(0);
+        CcyAmtDTO targetAmount = fxRateDTO.getCurrencyAmounts().get(1);
+        if (!RateSnapshot.BASE_CURRENCY.equals(baseAmount.getTargetCurrency()) || baseAmount.getAmount() == null
+                || baseAmount.getAmount().compareTo(BigDecimal.ONE) != 0
+                || targetAmount.getTargetCurrency() == null || targetAmount.getAmount() == null
+                || RateSnapshot.BASE_CURRENCY.equals(targetAmount.getTargetCurrency())) {
+            return null;
+        }
+        return targetAmount;
+    }
+
+    private static final class Builder {
+
+        private int[] epochDays = new int[32];
+        private long[] rates = new long[32];
+        private int size;
+        private boolean sorted = true;
+
+        private void add(int epochDay, long rate) {
+            if (size == epochDays.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            if (size > 0 && epochDays[size - 1] >= epochDay) {
+                sorted = false;
+            }
+            epochDays[size] = epochDay;
+            rates[size] = rate;
+            size++;
+        }
+
+        private RateSeries build(String type, String currencyCode) {
+            if (sorted) {
+                return new RateSeries(type, currencyCode, Arrays.copyOf(epochDays, size), Arrays.copyOf(rates, size));
+            }
+
+            // The web service returns the newest day first; a stable sort keeps the last rate of a duplicated day last
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> epochDays[i]));
+
+            int[] sortedDays = new int[size];
+            long[] sortedRates = new long[size];
+            int count = 0;
+            for (int index : order) {
+                if (count > 0 && sortedDays[count - 1] == epochDays[index]) {
+                    count--;
+                }
+                sortedDays[count] = epochDays[index];
+                sortedRates[count] = rates[index];
+                count++;
+            }
+            return new RateSeries(type, currencyCode, Arrays.copyOf(sortedDays, count), Arrays.copyOf(sortedRates, count));
+        }
+    }
+}
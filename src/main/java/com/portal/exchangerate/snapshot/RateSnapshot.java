@@ -0,0 +1,278 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.dto.RateChangeDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Immutable, primitive-backed view of every (type, date, currency) rate loaded by a scheduler run.
+ * Rates are stored as longs scaled by 10^{@value #SCALE} (the precision of the DECIMAL(20,10) columns)
+ * so a snapshot can be read from any thread without locking once it has been published.
+ */
+public final class RateSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshot.class);
+
+    public static final int SCALE = 10;
+    public static final long MISSING = Long.MIN_VALUE;
+    public static final String BASE_CURRENCY = "EUR";
+
+    public static final RateSnapshot EMPTY = new RateSnapshot(0, Instant.EPOCH, new String[0], Map.of(), new EnumMap<>(ExchangeRateType.class));
+
+    private final long version;
+    private final Instant createdAt;
+    private final String[] currencyCodes;
+    private final Map<String, Integer> currencyIndex;
+    private final EnumMap<ExchangeRateType, DayRates[]> ratesByType;
+
+    private RateSnapshot(long version, Instant createdAt, String[] currencyCodes, Map<String, Integer> currencyIndex,
+                         EnumMap<ExchangeRateType, DayRates[]> ratesByType) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.currencyCodes = currencyCodes;
+        this.currencyIndex = currencyIndex;
+        this.ratesByType = ratesByType;
+    }
+
+    public static RateSnapshot of(long version, Collection<FxRateDTO> fxRates) {
+        SortedSet<String> codes = new TreeSet<>();
+        for (FxRateDTO fxRateDTO : fxRates) {
+            if (fxRateDTO.getCurrencyAmounts() != null) {
+                for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
+                    if (ccyAmtDTO.getTargetCurrency() != null) {
+                        codes.add(ccyAmtDTO.getTargetCurrency());
+                    }
+                }
+            }
+        }
+
+        String[] currencyCodes = codes.toArray(new String[0]);
+        Map<String, Integer> currencyIndex = new HashMap<>();
+        for (int i = 0; i < currencyCodes.length; i++) {
+            currencyIndex.put(currencyCodes[i], i);
+        }
+
+        Map<ExchangeRateType, SortedMap<LocalDate, long[]>> rows = new EnumMap<>(ExchangeRateType.class);
+        for (FxRateDTO fxRateDTO : fxRates) {
+            ExchangeRateType type = parseType(fxRateDTO.getType());
+            if (type == null || fxRateDTO.getDate() == null || fxRateDTO.getCurrencyAmounts() == null) {
+                continue;
+            }
+
+            long[] row = rows.computeIfAbsent(type, key -> new TreeMap<>())
+                    .computeIfAbsent(fxRateDTO.getDate(), key -> newRow(currencyCodes.length));
+            for (CcyAmtDTO ccyAmtDTO : fxRateDTO.getCurrencyAmounts()) {
+                if (ccyAmtDTO.getTargetCurrency() == null || ccyAmtDTO.getAmount() == null) {
+                    continue;
+                }
+                try {
+                    row[currencyIndex.get(ccyAmtDTO.getTargetCurrency())] = toUnscaled(ccyAmtDTO.getAmount());
+                } catch (ArithmeticException e) {
+                    logger.warn("Skipping rate {} for currency {}: out of range", ccyAmtDTO.getAmount(), ccyAmtDTO.getTargetCurrency());
+                }
+            }
+        }
+
+        Map<String, Integer> unmodifiableCurrencyIndex = Collections.unmodifiableMap(currencyIndex);
+        EnumMap<ExchangeRateType, DayRates[]> ratesByType = new EnumMap<>(ExchangeRateType.class);
+        rows.forEach((type, days) -> ratesByType.put(type, days.entrySet().stream()
+                .map(day -> new DayRates(day.getKey(), day.getValue(),
+                        CrossRateMatrix.of(currencyCodes, unmodifiableCurrencyIndex, day.getValue())))
+                .toArray(DayRates[]::new)));
+
+        return new RateSnapshot(version, Instant.now(), currencyCodes, unmodifiableCurrencyIndex, ratesByType);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isEmpty() {
+        return ratesByType.isEmpty();
+    }
+
+    public List<String> getCurrencyCodes() {
+        return List.of(currencyCodes);
+    }
+
+    public Optional<LocalDate> getLatestDate(ExchangeRateType type) {
+        DayRates latest = latestDay(type);
+        return latest != null ? Optional.of(latest.date) : Optional.empty();
+    }
+
+    public List<LocalDate> getDates(ExchangeRateType type) {
+        DayRates[] days = ratesByType.get(type);
+        if (days == null) {
+            return List.of();
+        }
+        return Arrays.stream(days).map(day -> day.date).toList();
+    }
+
+    /**
+     * Returns the rate scaled by 10^{@value #SCALE}, or {@link #MISSING} if the snapshot has no such rate.
+     */
+    public long getRateUnscaled(ExchangeRateType type, LocalDate date, String currencyCode) {
+        Integer index = currencyIndex.get(currencyCode);
+        DayRates day = findDay(type, date);
+        return index != null && day != null ? day.rates[index] : MISSING;
+    }
+
+    public BigDecimal getRate(ExchangeRateType type, LocalDate date, String currencyCode) {
+        return toDecimal(getRateUnscaled(type, date, currencyCode));
+    }
+
+    public BigDecimal getLatestRate(ExchangeRateType type, String currencyCode) {
+        Integer index = currencyIndex.get(currencyCode);
+        DayRates latest = latestDay(type);
+        return index != null && latest != null ? toDecimal(latest.rates[index]) : null;
+    }
+
+    public CrossRateMatrix getCrossRates(ExchangeRateType type, LocalDate date) {
+        DayRates day = findDay(type, date);
+        return day != null ? day.crossRates : null;
+    }
+
+    public CrossRateMatrix getLatestCrossRates(ExchangeRateType type) {
+        DayRates latest = latestDay(type);
+        return latest != null ? latest.crossRates : null;
+    }
+
+    /**
+     * Materializes the rates of one day in the same shape the web service returns them:
+     * one {@link FxRateDTO} per currency, quoted against the base currency.
+     */
+    public List<FxRateDTO> getFxRates(ExchangeRateType type, LocalDate date) {
+        DayRates day = findDay(type, date);
+        if (day == null) {
+            return List.of();
+        }
+
+        List<FxRateDTO> fxRateDTOList = new ArrayList<>();
+        for (int i = 0; i < currencyCodes.length; i++) {
+            if (day.rates[i] == MISSING || BASE_CURRENCY.equals(currencyCodes[i])) {
+                continue;
+            }
+            fxRateDTOList.add(toFxRateDTO(type.getValue(), day.date, currencyCodes[i], toDecimal(day.rates[i])));
+        }
+        return fxRateDTOList;
+    }
+
+    /**
+     * Returns the latest rate of every type and currency that differs from the latest rate of the same type and
+     * currency in {@code previous}, or that {@code previous} does not have. A new date with the same rate is no change.
+     */
+    public List<RateChangeDTO> getLatestRateChanges(RateSnapshot previous) {
+        List<RateChangeDTO> changes = new ArrayList<>();
+        ratesByType.forEach((type, days) -> {
+            DayRates latest = days[days.length - 1];
+            DayRates previousLatest = previous.latestDay(type);
+            for (int i = 0; i < currencyCodes.length; i++) {
+                if (latest.rates[i] == MISSING || BASE_CURRENCY.equals(currencyCodes[i])) {
+                    continue;
+                }
+                Integer previousIndex = previous.currencyIndex.get(currencyCodes[i]);
+                long previousRate = previousLatest != null && previousIndex != null ? previousLatest.rates[previousIndex] : MISSING;
+                if (latest.rates[i] != previousRate) {
+                    changes.add(new RateChangeDTO(type.getValue(), currencyCodes[i], latest.date, toDecimal(latest.rates[i])));
+                }
+            }
+        });
+        return changes;
+    }
+
+    static FxRateDTO toFxRateDTO(String type, LocalDate date, String currencyCode, BigDecimal rate) {
+        CcyAmtDTO baseAmount = new CcyAmtDTO();
+        baseAmount.setTargetCurrency(BASE_CURRENCY);
+        baseAmount.setAmount(BigDecimal.ONE);
+
+        CcyAmtDTO targetAmount = new CcyAmtDTO();
+        targetAmount.setTargetCurrency(currencyCode);
+        targetAmount.setAmount(rate);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(type);
+        fxRateDTO.setDate(date);
+        fxRateDTO.setBaseCurrency(BASE_CURRENCY);
+        fxRateDTO.setRate(rate);
+        fxRateDTO.setCurrencyAmounts(List.of(baseAmount, targetAmount));
+        return fxRateDTO;
+    }
+
+    public static long toUnscaled(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long unscaled) {
+        if (unscaled == MISSING) {
+            return null;
+        }
+        BigDecimal value = BigDecimal.valueOf(unscaled, SCALE).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    private DayRates latestDay(ExchangeRateType type) {
+        DayRates[] days = ratesByType.get(type);
+        return days != null && days.length > 0 ? days[days.length - 1] : null;
+    }
+
+    private DayRates findDay(ExchangeRateType type, LocalDate date) {
+        DayRates[] days = ratesByType.get(type);
+        if (days == null || date == null) {
+            return null;
+        }
+        int low = 0;
+        int high = days.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = days[mid].date.compareTo(date);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return days[mid];
+            }
+        }
+        return null;
+    }
+
+    private static long[] newRow(int size) {
+        long[] row = new long[size];
+        Arrays.fill(row, MISSING);
+        return row;
+    }
+
+    private static ExchangeRateType parseType(String type) {
+        try {
+            return type != null ? ExchangeRateType.valueOf(type) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class DayRates {
+
+        private final LocalDate date;
+        private final long[] rates;
+        private final CrossRateMatrix crossRates;
+
+        private DayRates(LocalDate date, long[] rates, CrossRateMatrix crossRates) {
+            this.date = date;
+            this.rates = rates;
+            this.crossRates = crossRates;
+        }
+    }
+}
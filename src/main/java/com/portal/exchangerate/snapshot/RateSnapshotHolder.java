@@ -0,0 +1,35 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.FxRateDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the current {@link RateSnapshot} through a single volatile reference. Readers never lock;
+ * a new snapshot is fully built before it replaces the previous one.
+ */
+@Component
+public class RateSnapshotHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotHolder.class);
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    private volatile RateSnapshot snapshot = RateSnapshot.EMPTY;
+
+    public RateSnapshot get() {
+        return snapshot;
+    }
+
+    public RateSnapshot publish(Collection<FxRateDTO> fxRates) {
+        RateSnapshot newSnapshot = RateSnapshot.of(versionSequence.incrementAndGet(), fxRates);
+        snapshot = newSnapshot;
+        logger.info("Published rate snapshot version {} with {} currencies", newSnapshot.getVersion(), newSnapshot.getCurrencyCodes().size());
+        return newSnapshot;
+    }
+
+}
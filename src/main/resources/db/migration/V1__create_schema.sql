@@ -1,13 +1,11 @@
-DROP INDEX IF EXISTS idx_fx_rates_date_base_currency;
-DROP INDEX IF EXISTS idx_currency_code;
-
-DROP TABLE IF EXISTS currency_amount;
-DROP TABLE IF EXISTS fx_rates;
-DROP TABLE IF EXISTS currency_list;
+CREATE SEQUENCE IF NOT EXISTS currency_list_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS fx_rates_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS currency_amount_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS backfill_checkpoint_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS currency_list
 (
-    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id              BIGINT PRIMARY KEY,
     currency_code   VARCHAR(3)   NOT NULL,
     currency_name   VARCHAR(255) NOT NULL,
     currency_number INTEGER,
@@ -17,7 +15,7 @@ CREATE TABLE IF NOT EXISTS currency_list
 
 CREATE TABLE IF NOT EXISTS fx_rates
 (
-    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id            BIGINT PRIMARY KEY,
     fx_rate       DECIMAL(20, 10) NOT NULL,
     fx_rate_date  DATE            NOT NULL,
     fx_rate_type  VARCHAR(255)    NOT NULL,
@@ -27,7 +25,7 @@ CREATE TABLE IF NOT EXISTS fx_rates
 
 CREATE TABLE IF NOT EXISTS currency_amount
 (
-    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id              BIGINT PRIMARY KEY,
     fx_rate_id      BIGINT          NOT NULL,
     target_currency VARCHAR(3)      NOT NULL,
     amount          DECIMAL(20, 10) NOT NULL,
@@ -35,5 +33,17 @@ CREATE TABLE IF NOT EXISTS currency_amount
     FOREIGN KEY (target_currency) REFERENCES currency_list (currency_code)
 );
 
+CREATE TABLE IF NOT EXISTS backfill_checkpoint
+(
+    id            BIGINT PRIMARY KEY,
+    fx_rate_type  VARCHAR(255) NOT NULL,
+    currency_code VARCHAR(3),
+    chunk_start   DATE         NOT NULL,
+    chunk_end     DATE         NOT NULL,
+    rate_count    INTEGER      NOT NULL,
+    completed_at  TIMESTAMP    NOT NULL
+);
+
 CREATE INDEX idx_currency_code ON currency_list (currency_code);
-CREATE INDEX idx_fx_rates_date_base_currency ON fx_rates (fx_rate_date, base_currency);
\ No newline at end of file
+CREATE INDEX idx_fx_rates_date_base_currency ON fx_rates (fx_rate_date, base_currency);
+CREATE INDEX idx_backfill_checkpoint_type_chunk ON backfill_checkpoint (fx_rate_type, chunk_start, chunk_end);
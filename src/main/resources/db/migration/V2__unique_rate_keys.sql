@@ -0,0 +1,18 @@
+-- Each fx_rates row quotes one currency against the base currency; keep that currency on the row so the natural key
+-- of a rate can be enforced and looked up without joining currency_amount
+ALTER TABLE fx_rates ADD COLUMN quote_currency VARCHAR(3);
+
+UPDATE fx_rates f
+SET quote_currency = (SELECT MIN(a.target_currency)
+                      FROM currency_amount a
+                      WHERE a.fx_rate_id = f.id
+                        AND a.target_currency <> f.base_currency);
+
+ALTER TABLE fx_rates ADD CONSTRAINT fk_fx_rates_quote_currency
+    FOREIGN KEY (quote_currency) REFERENCES currency_list (currency_code);
+
+ALTER TABLE fx_rates ADD CONSTRAINT uk_fx_rates_date_type_base_quote
+    UNIQUE (fx_rate_date, fx_rate_type, base_currency, quote_currency);
+
+ALTER TABLE currency_amount ADD CONSTRAINT uk_currency_amount_fx_rate_target
+    UNIQUE (fx_rate_id, target_currency);
@@ -0,0 +1,16 @@
+-- Replaced by indexes that lead with the rate type, which every query filters on
+DROP INDEX IF EXISTS idx_fx_rates_date_base_currency;
+-- Duplicates the index of the unique constraint on currency_code
+DROP INDEX IF EXISTS idx_currency_code;
+
+-- Latest rate date per type (read as the first index entry) and the rates of one date and type
+CREATE INDEX idx_fx_rates_type_date ON fx_rates (fx_rate_type, fx_rate_date DESC);
+
+-- Latest rate per type and quoted currency, answered from the index alone, and stored rate lookups by the upsert
+CREATE INDEX idx_fx_rates_type_quote_date ON fx_rates (fx_rate_type, quote_currency, fx_rate_date DESC, fx_rate);
+
+-- Latest rate per type and base currency
+CREATE INDEX idx_fx_rates_type_base_date ON fx_rates (fx_rate_type, base_currency, fx_rate_date DESC);
+
+-- Whether any amount is stored for a currency; (fx_rate_id, target_currency) is indexed by its unique constraint
+CREATE INDEX idx_currency_amount_target_fx_rate ON currency_amount (target_currency, fx_rate_id);
@@ -0,0 +1,9 @@
+-- A rate without a quote currency escapes the unique natural key (NULL never equals NULL), so such rows piled up
+-- as duplicates on every update; they are no longer written, drop those already stored
+DELETE FROM currency_amount
+WHERE fx_rate_id IN (SELECT id FROM fx_rates WHERE quote_currency IS NULL);
+
+DELETE FROM fx_rates
+WHERE quote_currency IS NULL;
+
+ALTER TABLE fx_rates ALTER COLUMN quote_currency SET NOT NULL;
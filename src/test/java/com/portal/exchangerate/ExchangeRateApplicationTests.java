@@ -3,7 +3,7 @@ package com.portal.exchangerate;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "fx.rates.archive.path=")
 class ExchangeRateApplicationTests {
 
     @Test
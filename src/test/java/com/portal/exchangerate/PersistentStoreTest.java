@@ -0,0 +1,85 @@
+package com.portal.exchangerate;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.repository.CurrencyAmountRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentStoreTest {
+
+    private static StubFxRatesServer stubServer;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void startStubServer() throws IOException {
+        stubServer = StubFxRatesServer.start(10, Duration.ZERO);
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.close();
+    }
+
+    @Test
+    void ratesSurviveRestartAndReloadsAreNoOpsTest() throws InterruptedException {
+        long storedRates;
+        long storedAmounts;
+
+        try (ConfigurableApplicationContext context = start()) {
+            storedRates = context.getBean(FxRateRepository.class).count();
+            storedAmounts = context.getBean(CurrencyAmountRepository.class).count();
+            // Both rate types for the nine non-base currencies, each with a base and a quote amount
+            assertEquals(18, storedRates);
+            assertEquals(36, storedAmounts);
+
+            // A rate without a quote currency would escape the unique natural key
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                    "insert into fx_rates (id, fx_rate, fx_rate_date, fx_rate_type, base_currency) values (-1, 1, current_date, 'LT', 'EUR')"));
+
+            assertTrue(context.getBean(DataUpdateScheduler.class).updateData());
+            assertEquals(storedRates, context.getBean(FxRateRepository.class).count());
+            assertEquals(storedAmounts, context.getBean(CurrencyAmountRepository.class).count());
+        }
+
+        // The schema is migrated, not recreated, and the initial load of the restarted application upserts the same rates
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(storedRates, context.getBean(FxRateRepository.class).count());
+            assertEquals(storedAmounts, context.getBean(CurrencyAmountRepository.class).count());
+        }
+    }
+
+    private ConfigurableApplicationContext start() throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                .run("--spring.datasource.url=jdbc:h2:file:" + tempDir.resolve("exchange_rate_db"),
+                        "--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=");
+
+        DataUpdateScheduler dataUpdateScheduler = context.getBean(DataUpdateScheduler.class);
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!dataUpdateScheduler.isInitialLoadCompleted() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(dataUpdateScheduler.isInitialLoadCompleted());
+        return context;
+    }
+}
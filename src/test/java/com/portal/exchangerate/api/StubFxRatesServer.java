@@ -0,0 +1,259 @@
+package com.portal.exchangerate.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the lb.lt FxRates web service, serving deterministic synthetic data
+ * with a configurable response latency. Used by tests and benchmarks instead of the real bank.
+ */
+public class StubFxRatesServer implements AutoCloseable {
+
+    public static final String NAMESPACE_URI = "http://www.lb.lt/WebServices/FxRates";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<String> currencyCodes;
+    private final LocalDate currentDate;
+    private volatile Duration latency;
+    private volatile int errorStatus;
+    private volatile Duration bodyStall = Duration.ZERO;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> lastQueries = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    private StubFxRatesServer(List<String> currencyCodes, LocalDate currentDate, Duration latency) throws IOException {
+        this.currencyCodes = List.copyOf(currencyCodes);
+        this.currentDate = currentDate;
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public static StubFxRatesServer start(List<String> currencyCodes, Duration latency) throws IOException {
+        return new StubFxRatesServer(currencyCodes, LocalDate.now(), latency);
+    }
+
+    public static StubFxRatesServer start(int currencyCount, Duration latency) throws IOException {
+        return start(syntheticCurrencyCodes(currencyCount), latency);
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public List<String> getCurrencyCodes() {
+        return currencyCodes;
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Makes every following response stop for the given time after the first half of its body.
+     */
+    public void setBodyStall(Duration bodyStall) {
+        this.bodyStall = bodyStall;
+    }
+
+    /**
+     * Makes every following request fail with the given HTTP status; 0 restores normal responses.
+     */
+    public void setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Returns the number of requests for the operation, or the number of gzip encoded responses for {@code "gzip"}.
+     */
+    public int getRequestCount(String operation) {
+        AtomicInteger count = requestCounts.get(operation);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Returns the raw query string of the last request for the operation, or null if there was none.
+     */
+    public String getLastQuery(String operation) {
+        return lastQueries.get(operation);
+    }
+
+    /**
+     * Returns the highest number of requests that were being answered at the same time.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String operation = path.substring(path.lastIndexOf('/') + 1);
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        requestCounts.computeIfAbsent(operation, key -> new AtomicInteger()).incrementAndGet();
+        if (exchange.getRequestURI().getRawQuery() != null) {
+            lastQueries.put(operation, exchange.getRequestURI().getRawQuery());
+        }
+
+        String body;
+        switch (operation) {
+            case "getCurrencyList" -> body = currencyListXml(currencyCodes);
+            case "getCurrentFxRates" -> body = fxRatesXml(params.get("tp"), currencyCodes, currentDate, currentDate);
+            case "getFxRates" -> {
+                LocalDate date = parseDate(params.get("dt"), currentDate);
+                body = fxRatesXml(params.get("tp"), currencyCodes, date, date);
+            }
+            case "getFxRatesForCurrency" -> {
+                String currency = params.get("ccy");
+                List<String> codes = currency == null ? currencyCodes : List.of(currency);
+                body = fxRatesXml(params.get("tp"), codes,
+                        parseDate(params.get("dtFrom"), currentDate), parseDate(params.get("dtTo"), currentDate));
+            }
+            default -> body = null;
+        }
+
+        maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+        try {
+            sleep(latency);
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+
+        if (errorStatus != 0 || body == null) {
+            exchange.sendResponseHeaders(errorStatus != 0 ? errorStatus : 404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            bytes = gzip(bytes);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            requestCounts.computeIfAbsent("gzip", key -> new AtomicInteger()).incrementAndGet();
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes, 0, bytes.length / 2);
+            outputStream.flush();
+            sleep(bodyStall);
+            outputStream.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+        }
+    }
+
+    public static List<String> syntheticCurrencyCodes(int count) {
+        List<String> codes = new ArrayList<>();
+        codes.add("EUR");
+        for (int i = 0; codes.size() < count; i++) {
+            String code = "" + (char) ('A' + i / 676 % 26) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            if (!code.equals("EUR")) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    public static String currencyListXml(List<String> currencyCodes) {
+        StringBuilder xml = new StringBuilder("<CcyTbl xmlns=\"").append(NAMESPACE_URI).append("\">");
+        for (int i = 0; i < currencyCodes.size(); i++) {
+            String code = currencyCodes.get(i);
+            xml.append("<CcyNtry><Ccy>").append(code).append("</Ccy>")
+                    .append("<CcyNm lang=\"LT\">").append(code).append(" valiuta</CcyNm>")
+                    .append("<CcyNm lang=\"EN\">").append(code).append(" currency</CcyNm>")
+                    .append("<CcyNbr>").append(String.format("%03d", i + 1)).append("</CcyNbr>")
+                    .append("<CcyMnrUnts>2</CcyMnrUnts></CcyNtry>");
+        }
+        return xml.append("</CcyTbl>").toString();
+    }
+
+    public static String fxRatesXml(String type, List<String> currencyCodes, LocalDate from, LocalDate to) {
+        String rateType = type == null || type.isEmpty() ? "LT" : type;
+        StringBuilder xml = new StringBuilder("<FxRates xmlns=\"").append(NAMESPACE_URI).append("\">");
+        for (String code : currencyCodes) {
+            if (code.equals("EUR")) {
+                continue;
+            }
+            for (LocalDate date = to; !date.isBefore(from); date = date.minusDays(1)) {
+                xml.append("<FxRate><Tp>").append(rateType).append("</Tp><Dt>").append(date).append("</Dt>")
+                        .append("<CcyAmt><Ccy>EUR</Ccy><Amt>1</Amt></CcyAmt>")
+                        .append("<CcyAmt><Ccy>").append(code).append("</Ccy><Amt>").append(amount(code, date)).append("</Amt></CcyAmt>")
+                        .append("</FxRate>");
+            }
+        }
+        return xml.append("</FxRates>").toString();
+    }
+
+    public static String amount(String currencyCode, LocalDate date) {
+        long seed = Math.abs(currencyCode.hashCode() * 31L + date.toEpochDay() % 97);
+        long unscaled = 500_000 + seed % 1_999_500_000L;
+        return BigDecimal.valueOf(unscaled, 6).toPlainString();
+    }
+
+    private static LocalDate parseDate(String value, LocalDate defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : LocalDate.parse(value);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && separator < pair.length() - 1) {
+                params.put(pair.substring(0, separator),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
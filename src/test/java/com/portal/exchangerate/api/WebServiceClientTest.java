@@ -0,0 +1,140 @@
+package com.portal.exchangerate.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebServiceClientTest {
+
+    private StubFxRatesServer stubServer;
+    private WebServiceClient webServiceClient;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubServer = StubFxRatesServer.start(List.of("EUR", "USD", "GBP"), Duration.ZERO);
+        webServiceClient = createWebServiceClient(stubServer.getBaseUrl(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.close();
+    }
+
+    @Test
+    void getCurrencyListTest() {
+        String currencyList = webServiceClient.getCurrencyList();
+
+        assertEquals(StubFxRatesServer.currencyListXml(List.of("EUR", "USD", "GBP")), currencyList);
+        assertEquals(1, stubServer.getRequestCount("gzip"));
+    }
+
+    @Test
+    void getFxRatesForCurrencyAsyncTest() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 10);
+
+        CompletableFuture<String> usdRates = webServiceClient.getFxRatesForCurrencyAsync("LT", "USD", from, to);
+        CompletableFuture<String> gbpRates = webServiceClient.getFxRatesForCurrencyAsync("LT", "GBP", from, to);
+
+        assertEquals(StubFxRatesServer.fxRatesXml("LT", List.of("USD"), from, to), usdRates.join());
+        assertEquals(StubFxRatesServer.fxRatesXml("LT", List.of("GBP"), from, to), gbpRates.join());
+        assertEquals(2, stubServer.getRequestCount("getFxRatesForCurrency"));
+    }
+
+    @Test
+    void streamingBodyReaderTest() {
+        int length = webServiceClient.getCurrentFxRates("EU", inputStream -> {
+            try {
+                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).length();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(StubFxRatesServer.fxRatesXml("EU", List.of("EUR", "USD", "GBP"), LocalDate.now(), LocalDate.now()).length(), length);
+    }
+
+    @Test
+    void readTimeoutTest() {
+        stubServer.setLatency(Duration.ofSeconds(2));
+        WebServiceClient impatientClient = createWebServiceClient(stubServer.getBaseUrl(), Duration.ofMillis(200));
+
+        assertThrows(ResourceAccessException.class, impatientClient::getCurrencyList);
+    }
+
+    @Test
+    void bodyReadTimeoutTest() {
+        stubServer.setBodyStall(Duration.ofSeconds(10));
+        WebServiceClient impatientClient = createWebServiceClient(stubServer.getBaseUrl(), Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class,
+                () -> impatientClient.getCurrentFxRates("EU", inputStream -> {
+                    try {
+                        return inputStream.readAllBytes().length;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+
+        stubServer.setBodyStall(Duration.ZERO);
+        assertEquals(StubFxRatesServer.currencyListXml(List.of("EUR", "USD", "GBP")), impatientClient.getCurrencyList());
+    }
+
+    @Test
+    void errorStatusTest() {
+        stubServer.setErrorStatus(404);
+        HttpClientErrorException clientError = assertThrows(HttpClientErrorException.class,
+                () -> webServiceClient.getFxRates("LT", LocalDate.now()));
+        assertEquals(404, clientError.getStatusCode().value());
+
+        stubServer.setErrorStatus(503);
+        CompletableFuture<String> fxRates = webServiceClient.getFxRatesAsync("LT", LocalDate.now());
+        CompletionException completionException = assertThrows(CompletionException.class, fxRates::join);
+        assertInstanceOf(HttpServerErrorException.class, completionException.getCause());
+    }
+
+    @Test
+    void metricsTest() {
+        String currencyList = webServiceClient.getCurrencyList();
+        stubServer.setErrorStatus(404);
+        assertThrows(HttpClientErrorException.class, () -> webServiceClient.getFxRates("LT", LocalDate.now()));
+
+        assertEquals(1, meterRegistry.get("fx.upstream.requests")
+                .tags("operation", "getCurrencyList", "outcome", "success").timer().count());
+        assertEquals(currencyList.length(), meterRegistry.get("fx.upstream.response.size")
+                .tag("operation", "getCurrencyList").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("fx.upstream.requests")
+                .tags("operation", "getFxRates", "outcome", "client_error").timer().count());
+    }
+
+    private WebServiceClient createWebServiceClient(String baseUrl, Duration readTimeout) {
+        WebServiceClient client = new WebServiceClient();
+        ReflectionTestUtils.setField(client, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(client, "readTimeout", readTimeout);
+        ReflectionTestUtils.setField(client, "httpClient", HttpClient.newHttpClient());
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        return client;
+    }
+}
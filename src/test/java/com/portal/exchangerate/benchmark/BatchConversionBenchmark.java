@@ -0,0 +1,107 @@
+package com.portal.exchangerate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.dto.ConversionDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting 1 000 random currency pairs of 150 currencies over HTTP: one {@code POST /api/fx-rate/convert}
+ * with every pair, against one {@code GET /api/fx-rate/cross-rate/{from}/{to}} per pair as the converter did
+ * before. One operation converts all pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class BatchConversionBenchmark {
+
+    @Param({"1000"})
+    public int pairCount;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private List<ConversionDTO> conversions;
+    private HttpRequest convertRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(150, Duration.ZERO);
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .run("--server.port=0",
+                        "--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--logging.level.root=warn");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/fx-rate";
+        httpClient = HttpClient.newHttpClient();
+
+        List<String> currencyCodes = stubServer.getCurrencyCodes();
+        Random random = new Random(42);
+        conversions = new ArrayList<>();
+        for (int i = 0; i < pairCount; i++) {
+            conversions.add(new ConversionDTO(currencyCodes.get(random.nextInt(currencyCodes.size())),
+                    currencyCodes.get(random.nextInt(currencyCodes.size())), BigDecimal.valueOf(random.nextInt(100_000), 2), null, null));
+        }
+        byte[] body = context.getBean(ObjectMapper.class).writeValueAsBytes(new ConversionRequestDTO(null, null, null, conversions));
+        convertRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/convert"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        // The initial load runs in the background; wait for the snapshot
+        int status = 0;
+        for (int attempt = 0; status != 200 && attempt < 100; attempt++) {
+            Thread.sleep(100);
+            status = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl.replace("/api/fx-rate", "/actuator/health/readiness"))).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        if (status != 200 || batch() != 200 || perPair() != 200) {
+            throw new IllegalStateException("Rates not loaded");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public int batch() throws IOException, InterruptedException {
+        return httpClient.send(convertRequest, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+    }
+
+    @Benchmark
+    public int perPair() throws IOException, InterruptedException {
+        int status = 200;
+        for (ConversionDTO conversion : conversions) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/cross-rate/" + conversion.getFrom() + "/" + conversion.getTo())).build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            status = Math.max(status, response.statusCode());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,95 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.controller.FxRateCompactController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the bulk endpoints over HTTP, HATEOAS (one {@code EntityModel} with a self link per rate)
+ * against the compact representation of {@link FxRateCompactController}, on a running server backed by a local
+ * upstream stub: the current rates of 150 currencies and five years of USD history. The response sizes are
+ * printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class CompactJsonBenchmark {
+
+    @Param({"current", "history"})
+    public String endpoint;
+
+    @Param({"hateoas", "compact"})
+    public String representation;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(150, Duration.ZERO);
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .run("--server.port=0",
+                        "--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--logging.level.root=warn");
+
+        String path = switch (endpoint) {
+            case "current" -> "/api/fx-rate/current-exchange-rates/LT";
+            case "history" -> "/api/fx-rate/exchange-rates/LT/USD/2019-03-01/2024-03-01";
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+        String accept = representation.equals("compact") ? FxRateCompactController.COMPACT_JSON_VALUE : MediaType.APPLICATION_JSON_VALUE;
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path))
+                .header(HttpHeaders.ACCEPT, accept)
+                .GET()
+                .build();
+        httpClient = HttpClient.newHttpClient();
+
+        // The initial load runs in the background; wait for it, and warm the history cache
+        HttpResponse<byte[]> response = send();
+        for (int attempt = 0; response.statusCode() != 200 && attempt < 100; attempt++) {
+            Thread.sleep(100);
+            response = send();
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        System.out.printf("%n%s %s: %d bytes, %s%n", endpoint, representation, response.body().length,
+                response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(""));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public int fetch() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send();
+        return response.body().length;
+    }
+
+    private HttpResponse<byte[]> send() throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
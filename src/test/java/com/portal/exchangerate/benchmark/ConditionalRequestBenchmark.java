@@ -0,0 +1,100 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.config.ConditionalRequestInterceptor;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of a rate request that a client already has, answered in full against revalidated with
+ * {@code If-None-Match} by {@link ConditionalRequestInterceptor}, through MockMvc (so no socket and no HTTP codec
+ * in the measurement) on an application backed by a local upstream stub: the current rates of 150 currencies and
+ * five years of USD history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class ConditionalRequestBenchmark {
+
+    @Param({"current", "history"})
+    public String endpoint;
+
+    @Param({"full", "notModified"})
+    public String response;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private MockHttpServletRequestBuilder request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(150, Duration.ZERO);
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .run("--server.port=0",
+                        "--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--logging.level.root=warn");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        String path = switch (endpoint) {
+            case "current" -> "/api/fx-rate/current-exchange-rates/LT";
+            case "history" -> "/api/fx-rate/exchange-rates/LT/USD/2019-03-01/2024-03-01";
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+        request = get(path).accept(MediaType.APPLICATION_JSON);
+
+        // The initial load runs in the background and changes the ETag when it completes; wait for it
+        DataUpdateScheduler dataUpdateScheduler = context.getBean(DataUpdateScheduler.class);
+        for (int attempt = 0; !dataUpdateScheduler.isInitialLoadCompleted() && attempt < 100; attempt++) {
+            Thread.sleep(100);
+        }
+        MockHttpServletResponse fullResponse = fetch(request);
+        if (fullResponse.getStatus() != HttpStatus.OK.value()) {
+            throw new IllegalStateException("Unexpected status " + fullResponse.getStatus());
+        }
+
+        if (response.equals("notModified")) {
+            request = get(path).accept(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.IF_NONE_MATCH, fullResponse.getHeader(HttpHeaders.ETAG));
+            if (fetch(request).getStatus() != HttpStatus.NOT_MODIFIED.value()) {
+                throw new IllegalStateException("Expected 304 for ETag " + fullResponse.getHeader(HttpHeaders.ETAG));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public int fetch() throws Exception {
+        return fetch(request).getContentLength();
+    }
+
+    private MockHttpServletResponse fetch(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        return mockMvc.perform(requestBuilder).andReturn().getResponse();
+    }
+}
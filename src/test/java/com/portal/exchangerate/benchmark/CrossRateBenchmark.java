@@ -0,0 +1,82 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.service.FxRateServiceImpl;
+import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.CrossRateMatrix;
+import com.portal.exchangerate.snapshot.RateSnapshot;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link FxRateServiceImpl#calculateCrossRate(String, String)} for the current LT rates of the lb.lt fixture:
+ * answered from the cross-rate matrix of a published snapshot, and, before any snapshot is published, divided
+ * from the two stored EUR rates. {@code crossRateMatrix} is the cost of building the matrix for a new snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrossRateBenchmark {
+
+    private List<FxRateDTO> fxRates;
+    private FxRateServiceImpl snapshotService;
+    private FxRateServiceImpl storedRatesService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+        fxRates = xmlDataParser.parseExchangeRates(LbFixtures.read(LbFixtures.CURRENT_FX_RATES_LT));
+
+        RateSnapshotHolder rateSnapshotHolder = new RateSnapshotHolder();
+        rateSnapshotHolder.publish(fxRates);
+        snapshotService = new FxRateServiceImpl(null, null, null, null, rateSnapshotHolder, null);
+
+        Map<String, BigDecimal> storedRates = fxRates.stream()
+                .map(fxRateDTO -> fxRateDTO.getCurrencyAmounts().get(1))
+                .collect(Collectors.toMap(CcyAmtDTO::getTargetCurrency, CcyAmtDTO::getAmount));
+        FxRateRepository fxRateRepository = (FxRateRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FxRateRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findLatestRate")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return Optional.ofNullable(storedRates.get((String) args[1]));
+                });
+        storedRatesService = new FxRateServiceImpl(null, null, null, fxRateRepository, new RateSnapshotHolder(), null);
+    }
+
+    @Benchmark
+    public BigDecimal snapshotCrossRate() {
+        return snapshotService.calculateCrossRate("USD", "GBP");
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> snapshotCrossRateRow() {
+        return snapshotService.getCrossRates("USD");
+    }
+
+    @Benchmark
+    public BigDecimal storedRatesCrossRate() {
+        return storedRatesService.calculateCrossRate("USD", "GBP");
+    }
+
+    @Benchmark
+    public CrossRateMatrix crossRateMatrix() {
+        return RateSnapshot.of(1, fxRates).getLatestCrossRates(ExchangeRateType.LT);
+    }
+}
@@ -0,0 +1,59 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.model.Ccy;
+import com.portal.exchangerate.repository.CurrencyRepository;
+import com.portal.exchangerate.service.FxRateServiceImpl;
+import com.portal.exchangerate.service.XmlDataParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to DTO mapping of the currency list: {@link FxRateServiceImpl#getCurrencies()} runs the private
+ * {@code convertCurrencyEntityToCcyDTO} once per currency of the lb.lt currency list fixture, which the
+ * repository stub returns without touching a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyMappingBenchmark {
+
+    private FxRateServiceImpl fxRateService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+        List<Ccy> currencies = xmlDataParser.parseCurrencyList(LbFixtures.read(LbFixtures.CURRENCY_LIST)).stream()
+                .map(ccyDTO -> {
+                    Ccy ccy = new Ccy();
+                    ccy.setCurrencyCode(ccyDTO.getCurrencyCode());
+                    ccy.setCurrencyName(ccyDTO.getCurrencyName());
+                    ccy.setCurrencyNumber(ccyDTO.getCurrencyNumber());
+                    ccy.setMinorUnits(ccyDTO.getMinorUnits());
+                    return ccy;
+                })
+                .collect(Collectors.toList());
+        CurrencyRepository currencyRepository = (CurrencyRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CurrencyRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return currencies;
+                });
+        fxRateService = new FxRateServiceImpl(null, currencyRepository, null, null, null, null);
+    }
+
+    @Benchmark
+    public List<CcyDTO> getCurrencies() {
+        return fxRateService.getCurrencies();
+    }
+}
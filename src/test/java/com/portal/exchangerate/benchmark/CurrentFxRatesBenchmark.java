@@ -0,0 +1,72 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateService;
+import com.portal.exchangerate.service.XmlDataParser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of /api/fx-rate/current-exchange-rates before (web service + XML parsing on every call)
+ * and after (answered from the stored rates) against a local upstream stub with a fixed delay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentFxRatesBenchmark {
+
+    @Param({"20"})
+    public long upstreamLatencyMillis;
+
+    @Param({"150"})
+    public int currencyCount;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private WebServiceClient webServiceClient;
+    private XmlDataParser xmlDataParser;
+    private FxRateService fxRateService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(currencyCount, Duration.ofMillis(upstreamLatencyMillis));
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--logging.level.root=warn");
+        webServiceClient = context.getBean(WebServiceClient.class);
+        xmlDataParser = context.getBean(XmlDataParser.class);
+        fxRateService = context.getBean(FxRateService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public List<FxRateDTO> upstreamPerRequest() {
+        String fxRatesData = webServiceClient.getFxRatesForCurrency(ExchangeRateType.LT.toString(), null, null, null);
+        return xmlDataParser.parseExchangeRates(fxRatesData);
+    }
+
+    @Benchmark
+    public List<FxRateDTO> localRateStore() {
+        return fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.FixedPoint;
+import com.portal.exchangerate.snapshot.RateSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross rates and conversions of the current LT rates of the lb.lt fixture with {@link FixedPoint} against the
+ * {@link BigDecimal} arithmetic it replaced, cycling through 1 024 random pairs. Allocation is reported with
+ * the GC profiler: {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private final long[] fromRates = new long[PAIRS];
+    private final long[] toRates = new long[PAIRS];
+    private final BigDecimal[] amounts = new BigDecimal[PAIRS];
+    private int pair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+        List<FxRateDTO> fxRates = xmlDataParser.parseExchangeRates(LbFixtures.read(LbFixtures.CURRENT_FX_RATES_LT));
+
+        Random random = new Random(42);
+        for (int i = 0; i < PAIRS; i++) {
+            fromRates[i] = RateSnapshot.toUnscaled(fxRates.get(random.nextInt(fxRates.size())).getRate());
+            toRates[i] = RateSnapshot.toUnscaled(fxRates.get(random.nextInt(fxRates.size())).getRate());
+            amounts[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+        }
+    }
+
+    @Benchmark
+    public long bigDecimalCrossRate() {
+        int i = nextPair();
+        return RateSnapshot.toUnscaled(BigDecimal.valueOf(toRates[i], RateSnapshot.SCALE)
+                .divide(BigDecimal.valueOf(fromRates[i], RateSnapshot.SCALE), MathContext.DECIMAL128)
+                .setScale(RateSnapshot.SCALE, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public long fixedPointCrossRate() {
+        int i = nextPair();
+        return FixedPoint.divide(toRates[i], fromRates[i]);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalConversion() {
+        int i = nextPair();
+        return amounts[i].multiply(BigDecimal.valueOf(toRates[i], RateSnapshot.SCALE)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointConversion() {
+        int i = nextPair();
+        return FixedPoint.multiply(amounts[i], toRates[i], 2);
+    }
+
+    private int nextPair() {
+        pair = (pair + 1) & (PAIRS - 1);
+        return pair;
+    }
+}
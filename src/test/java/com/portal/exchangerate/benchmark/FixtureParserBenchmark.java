@@ -0,0 +1,48 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.service.XmlDataParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link XmlDataParser#parseExchangeRates(String)} on the lb.lt fixtures (the current LT rates and a month of USD
+ * history) and on a huge payload: a year of LT history for 150 currencies, about 55 000 rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixtureParserBenchmark {
+
+    @Param({"current", "history", "huge"})
+    public String payload;
+
+    private final XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+
+    private String xmlData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        xmlData = switch (payload) {
+            case "current" -> LbFixtures.read(LbFixtures.CURRENT_FX_RATES_LT);
+            case "history" -> LbFixtures.read(LbFixtures.FX_RATES_FOR_CURRENCY_LT_USD);
+            case "huge" -> StubFxRatesServer.fxRatesXml("LT", StubFxRatesServer.syntheticCurrencyCodes(150),
+                    LocalDate.parse("2023-03-02"), LocalDate.parse("2024-03-01"));
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+    }
+
+    @Benchmark
+    public List<FxRateDTO> parseExchangeRates() {
+        return xmlDataParser.parseExchangeRates(xmlData);
+    }
+}
@@ -0,0 +1,90 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.controller.FxRateController;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateService;
+import com.portal.exchangerate.service.XmlDataParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HATEOAS model assembly in {@link FxRateController}: one {@link EntityModel} with a self link per element of
+ * the lb.lt fixtures, built inside a request context the way a dispatched request builds it. The service is
+ * a stub, so JSON serialization and the MVC dispatch are not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HateoasAssemblyBenchmark {
+
+    private static final LocalDate START_DATE = LocalDate.parse("2024-02-01");
+    private static final LocalDate END_DATE = LocalDate.parse("2024-03-01");
+
+    private FxRateController fxRateController;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+        List<CcyDTO> currencies = xmlDataParser.parseCurrencyList(LbFixtures.read(LbFixtures.CURRENCY_LIST));
+        List<FxRateDTO> currentFxRates = xmlDataParser.parseExchangeRates(LbFixtures.read(LbFixtures.CURRENT_FX_RATES_LT));
+        List<FxRateDTO> history = xmlDataParser.parseExchangeRates(LbFixtures.read(LbFixtures.FX_RATES_FOR_CURRENCY_LT_USD));
+
+        FxRateService fxRateService = (FxRateService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FxRateService.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getCurrencies" -> currencies;
+                    case "getCurrentFxRates" -> currentFxRates;
+                    case "getFxRates" -> history;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        fxRateController = new FxRateController(fxRateService, null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/fx-rate");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // The controller answers failures with an empty 500, which would be measured as a very fast assembly
+        for (ResponseEntity<?> response : List.of(currencyList(), currentExchangeRates(), exchangeRatesForCurrency())) {
+            if (response.getStatusCode() != HttpStatus.OK) {
+                throw new IllegalStateException("Unexpected status " + response.getStatusCode());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public ResponseEntity<CollectionModel<EntityModel<CcyDTO>>> currencyList() {
+        return fxRateController.getCurrencyList();
+    }
+
+    @Benchmark
+    public ResponseEntity<CollectionModel<EntityModel<FxRateDTO>>> currentExchangeRates() {
+        return fxRateController.getCurrentExchangeRates(ExchangeRateType.LT);
+    }
+
+    @Benchmark
+    public ResponseEntity<CollectionModel<EntityModel<FxRateDTO>>> exchangeRatesForCurrency() {
+        return fxRateController.getExchangeRatesForCurrency(ExchangeRateType.LT, "USD", START_DATE, END_DATE);
+    }
+}
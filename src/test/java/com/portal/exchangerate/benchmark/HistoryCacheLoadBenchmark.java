@@ -0,0 +1,99 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.service.FxRateHistoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History requests with a realistic mix against a local upstream stub: a few popular currencies get most of
+ * the traffic, most requests use the UI presets ending today (last 7/30/90/365 days), the rest pick arbitrary
+ * dates of up to 90 days within the last ten years. Requests go through the month-segmented
+ * {@link FxRateHistoryService#getFxRatesBetween} like /api/fx-rate/exchange-rates does.
+ * The history cache statistics are printed after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class HistoryCacheLoadBenchmark {
+
+    private static final int[] PRESET_DAYS = {7, 30, 90, 365};
+
+    @Param({"20"})
+    public long upstreamLatencyMillis;
+
+    @Param({"150"})
+    public int currencyCount;
+
+    @Param({"200000"})
+    public long maxCachedRates;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private FxRateHistoryService fxRateHistoryService;
+    private List<String> currencyCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(currencyCount, Duration.ofMillis(upstreamLatencyMillis));
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--fx.rates.history-cache.max-rates=" + maxCachedRates,
+                        "--logging.level.root=warn");
+        fxRateHistoryService = context.getBean(FxRateHistoryService.class);
+        currencyCodes = stubServer.getCurrencyCodes().stream()
+                .filter(code -> !code.equals("EUR"))
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println();
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        meterRegistry.find("cache.gets").tag("cache", FxRateHistoryService.CACHE_NAME).functionCounters()
+                .forEach(counter -> System.out.println("History cache " + counter.getId().getTag("result") + "s: " + (long) counter.count()));
+        System.out.println("History cache evictions: " + (long) meterRegistry.get("cache.evictions").tag("cache", FxRateHistoryService.CACHE_NAME).functionCounter().count());
+        System.out.println("History cache rates: " + (long) meterRegistry.get("fx.history.cache.rates").gauge().value());
+        System.out.println("Upstream calls: " + stubServer.getRequestCount("getFxRatesForCurrency"));
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public List<FxRateDTO> mixedHistoryRequests() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String currency = pickCurrency(random);
+        LocalDate today = LocalDate.now();
+
+        if (random.nextInt(100) < 80) {
+            int days = PRESET_DAYS[random.nextInt(PRESET_DAYS.length)];
+            return fxRateHistoryService.getFxRatesBetween("EU", currency, today.minusDays(days), today);
+        }
+        LocalDate startDate = today.minusDays(90 + random.nextInt(3560));
+        return fxRateHistoryService.getFxRatesBetween("EU", currency, startDate, startDate.plusDays(random.nextInt(90)));
+    }
+
+    // Roughly Zipf distributed: the first currencies of the list are requested far more often than the last ones
+    private String pickCurrency(ThreadLocalRandom random) {
+        double uniform = random.nextDouble();
+        int index = (int) (Math.pow(uniform, 3) * currencyCodes.size());
+        return currencyCodes.get(Math.min(index, currencyCodes.size() - 1));
+    }
+}
@@ -0,0 +1,30 @@
+package com.portal.exchangerate.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Web service responses in the lb.lt format from {@code src/test/resources/fixtures/lb-lt}.
+ */
+final class LbFixtures {
+
+    static final String CURRENT_FX_RATES_LT = "getCurrentFxRates-LT.xml";
+    static final String FX_RATES_FOR_CURRENCY_LT_USD = "getFxRatesForCurrency-LT-USD.xml";
+    static final String CURRENCY_LIST = "getCurrencyList.xml";
+
+    private LbFixtures() {
+    }
+
+    static String read(String name) {
+        try (InputStream inputStream = LbFixtures.class.getResourceAsStream("/fixtures/lb-lt/" + name)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
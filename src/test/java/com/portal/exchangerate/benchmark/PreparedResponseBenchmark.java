@@ -0,0 +1,120 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.config.PreparedResponseFilter;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the daily snapshot endpoints over HTTP, serialized for every request against served from the
+ * bodies kept by {@link PreparedResponseFilter}, with and without {@code Accept-Encoding: gzip}, on a running server
+ * backed by a local upstream stub with 150 currencies. Besides requests per second, every measurement iteration
+ * prints the process CPU time per request; client and server share the process, so the difference between the
+ * {@code prepared} settings is what the server saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class PreparedResponseBenchmark {
+
+    @Param({"current", "currencyList"})
+    public String endpoint;
+
+    @Param({"false", "true"})
+    public boolean prepared;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest request;
+
+    private final com.sun.management.OperatingSystemMXBean operatingSystem =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private final AtomicLong requests = new AtomicLong();
+    private long iterationCpuTime;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(150, Duration.ZERO);
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .run("--server.port=0",
+                        "--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--fx.rates.prepared-responses.enabled=" + prepared,
+                        "--logging.level.root=warn");
+
+        String path = switch (endpoint) {
+            case "current" -> "/api/fx-rate/current-exchange-rates/LT";
+            case "currencyList" -> "/api/fx-rate/currency-list";
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, encoding)
+                .GET()
+                .build();
+        httpClient = HttpClient.newHttpClient();
+
+        // The initial load runs in the background; wait for it, so the prepared bodies stay valid
+        DataUpdateScheduler dataUpdateScheduler = context.getBean(DataUpdateScheduler.class);
+        for (int attempt = 0; !dataUpdateScheduler.isInitialLoadCompleted() && attempt < 100; attempt++) {
+            Thread.sleep(100);
+        }
+        HttpResponse<byte[]> response = send();
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        System.out.printf("%n%s %s: %d bytes%n", endpoint, response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse("identity"),
+                response.body().length);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        requests.set(0);
+        iterationCpuTime = operatingSystem.getProcessCpuTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long cpuTime = operatingSystem.getProcessCpuTime() - iterationCpuTime;
+        System.out.printf(" [%.1f µs CPU/request]", cpuTime / 1000.0 / Math.max(1, requests.get()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public int fetch() throws IOException, InterruptedException {
+        requests.incrementAndGet();
+        return send().body().length;
+    }
+
+    private HttpResponse<byte[]> send() throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,89 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.RateSeries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rate history held as parsed {@link FxRateDTO} lists against columnar {@link RateSeries}: retained heap of
+ * the whole history (printed during setup) and the cost of answering a 90 day range query from each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RateSeriesBenchmark {
+
+    private static final LocalDate TO = LocalDate.parse("2024-03-01");
+
+    @Param({"150"})
+    public int currencyCount;
+
+    @Param({"10"})
+    public int years;
+
+    private List<List<FxRateDTO>> fxRateLists;
+    private List<RateSeries> rateSeries;
+    private LocalDate rangeStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+        List<String> currencyCodes = StubFxRatesServer.syntheticCurrencyCodes(currencyCount);
+        LocalDate from = TO.minusYears(years).plusDays(1);
+        rangeStart = TO.minusDays(89);
+
+        fxRateLists = retain("FxRateDTO lists", () -> {
+            List<List<FxRateDTO>> lists = new ArrayList<>();
+            for (String code : currencyCodes) {
+                if (!code.equals("EUR")) {
+                    lists.add(xmlDataParser.parseExchangeRates(StubFxRatesServer.fxRatesXml("LT", List.of("EUR", code), from, TO)));
+                }
+            }
+            return lists;
+        });
+        rateSeries = retain("RateSeries", () -> fxRateLists.stream()
+                .map(fxRates -> RateSeries.of(fxRates).orElseThrow().get(0))
+                .toList());
+    }
+
+    @Benchmark
+    public List<FxRateDTO> rangeFromFxRateList() {
+        return fxRateLists.get(0).stream()
+                .filter(fxRate -> !fxRate.getDate().isBefore(rangeStart) && !fxRate.getDate().isAfter(TO))
+                .toList();
+    }
+
+    @Benchmark
+    public List<FxRateDTO> rangeFromRateSeries() {
+        return rateSeries.get(0).getFxRates(rangeStart, TO);
+    }
+
+    private static <T> T retain(String name, Supplier<T> supplier) {
+        long before = usedHeap();
+        T value = supplier.get();
+        long retained = usedHeap() - before;
+        System.out.printf("%nRetained heap of %s: %.1f MB%n", name, retained / (1024.0 * 1024.0));
+        return value;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,188 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.model.Ccy;
+import com.portal.exchangerate.model.FxRate;
+import com.portal.exchangerate.repository.CurrencyRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries against ten years of synthetic LT and EU rates (about 1.1 million fx_rates and 2.2 million
+ * currency_amount rows for 150 currencies), with the schema migrated up to {@code schemaVersion}: 2 has only
+ * the unique keys, 3 adds the covering indexes. The query plans are printed during setup. The {@code legacy*}
+ * benchmarks run the queries the repository used before they were rewritten.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RepositoryQueryBenchmark {
+
+    private static final LocalDate TO = LocalDate.parse("2024-03-01");
+    private static final String[] TYPES = {"LT", "EU"};
+
+    @Param({"2", "3"})
+    public String schemaVersion;
+
+    @Param({"150"})
+    public int currencyCount;
+
+    @Param({"10"})
+    public int years;
+
+    private ConfigurableApplicationContext context;
+    private FxRateRepository fxRateRepository;
+    private CurrencyRepository currencyRepository;
+    private EntityManager entityManager;
+    private String currencyCode;
+    private Ccy baseCurrency;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The web service is unreachable on purpose: the initial load must not write while the history is inserted.
+        // H2 would otherwise answer a repeated query on unchanged tables from the result of the previous run.
+        context = new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:repository_benchmark;OPTIMIZE_REUSE_RESULTS=FALSE",
+                        "--spring.flyway.target=" + schemaVersion,
+                        "--fx.rates.webservice.base-url=http://localhost:1",
+                        "--fx.rates.initial-load.retry-interval=1d",
+                        "--fx.rates.archive.path=",
+                        "--logging.level.root=off");
+        fxRateRepository = context.getBean(FxRateRepository.class);
+        currencyRepository = context.getBean(CurrencyRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<String> currencyCodes = StubFxRatesServer.syntheticCurrencyCodes(currencyCount);
+        long startNanos = System.nanoTime();
+        insertHistory(jdbcTemplate, currencyCodes);
+        jdbcTemplate.execute("ANALYZE");
+        System.out.printf("%nInserted %d rates and %d currency amounts in %d s%n",
+                jdbcTemplate.queryForObject("select count(*) from fx_rates", Long.class),
+                jdbcTemplate.queryForObject("select count(*) from currency_amount", Long.class),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+
+        currencyCode = currencyCodes.get(currencyCodes.size() / 2);
+        baseCurrency = currencyRepository.findByCurrencyCode("EUR");
+        printPlan(jdbcTemplate, "select fx_rate_date from fx_rates where fx_rate_type = 'LT' "
+                + "order by fx_rate_type, fx_rate_date desc limit 1");
+        printPlan(jdbcTemplate, "select fx_rate from fx_rates where fx_rate_type = 'LT' and quote_currency = '" + currencyCode
+                + "' order by fx_rate_type, quote_currency, fx_rate_date desc limit 1");
+        printPlan(jdbcTemplate, "select * from fx_rates f left join currency_amount a on a.fx_rate_id = f.id "
+                + "where f.fx_rate_date = '" + TO + "' and f.fx_rate_type = 'LT'");
+        printPlan(jdbcTemplate, "select * from fx_rates where fx_rate_type = 'LT' and base_currency = 'EUR' "
+                + "order by fx_rate_type, base_currency, fx_rate_date desc limit 1");
+        printPlan(jdbcTemplate, "select * from fx_rates where fx_rate_type = 'LT' and fx_rate_date between '" + TO.minusDays(6)
+                + "' and '" + TO + "' and quote_currency in ('" + currencyCode + "')");
+        printPlan(jdbcTemplate, "select c.currency_code from currency_list c where exists "
+                + "(select 1 from currency_amount a where a.target_currency = c.currency_code) order by c.currency_code");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<LocalDate> latestRateDate() {
+        return fxRateRepository.findLatestRateDate("LT");
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> latestRateForCurrency() {
+        return fxRateRepository.findLatestRate("LT", currencyCode);
+    }
+
+    @Benchmark
+    public Optional<FxRate> latestRateForBaseCurrency() {
+        return fxRateRepository.findLatestByFxRateTypeAndBaseCurrency("LT", baseCurrency);
+    }
+
+    @Benchmark
+    public List<FxRate> ratesOfDate() {
+        return fxRateRepository.findWithCurrencyAmountsByFxRateDateAndFxRateType(TO, "LT");
+    }
+
+    @Benchmark
+    public List<FxRate> storedRatesOfWeek() {
+        return fxRateRepository.findStoredRates("LT", TO.minusDays(6), TO, List.of(currencyCode));
+    }
+
+    @Benchmark
+    public List<CcyDTO> availableCurrencies() {
+        return currencyRepository.findAvailableCurrencies();
+    }
+
+    @Benchmark
+    public LocalDate legacyLatestRateDate() {
+        return entityManager.createQuery("select f from FxRate f where f.fxRateType = :fxRateType order by f.fxRateDate desc", FxRate.class)
+                .setParameter("fxRateType", "LT")
+                .setMaxResults(1)
+                .getSingleResult()
+                .getFxRateDate();
+    }
+
+    @Benchmark
+    public List<CcyDTO> legacyAvailableCurrencies() {
+        return entityManager.createQuery("select distinct new com.portal.exchangerate.dto.CcyDTO(c.currencyCode, c.currencyName, "
+                        + "c.currencyNumber, c.minorUnits) from CcyAmt a join a.targetCurrency c order by c.currencyCode", CcyDTO.class)
+                .getResultList();
+    }
+
+    private void insertHistory(JdbcTemplate jdbcTemplate, List<String> currencyCodes) {
+        List<Object[]> currencies = new ArrayList<>();
+        for (int i = 0; i < currencyCodes.size(); i++) {
+            currencies.add(new Object[]{i + 1L, currencyCodes.get(i), currencyCodes.get(i) + " currency", i + 1, "2"});
+        }
+        jdbcTemplate.batchUpdate("insert into currency_list (id, currency_code, currency_name, currency_number, minor_units) "
+                + "values (?, ?, ?, ?, ?)", currencies);
+
+        long id = 1;
+        for (LocalDate date = TO.minusYears(years).plusDays(1); !date.isAfter(TO); date = date.plusDays(1)) {
+            List<Object[]> fxRates = new ArrayList<>();
+            List<Object[]> currencyAmounts = new ArrayList<>();
+            for (String type : TYPES) {
+                for (String code : currencyCodes) {
+                    if (code.equals("EUR")) {
+                        continue;
+                    }
+                    BigDecimal amount = new BigDecimal(StubFxRatesServer.amount(code, date));
+                    fxRates.add(new Object[]{id, amount, Date.valueOf(date), type, "EUR", code});
+                    currencyAmounts.add(new Object[]{2 * id, id, "EUR", BigDecimal.ONE});
+                    currencyAmounts.add(new Object[]{2 * id + 1, id, code, amount});
+                    id++;
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into fx_rates (id, fx_rate, fx_rate_date, fx_rate_type, base_currency, quote_currency) "
+                    + "values (?, ?, ?, ?, ?, ?)", fxRates);
+            jdbcTemplate.batchUpdate("insert into currency_amount (id, fx_rate_id, target_currency, amount) values (?, ?, ?, ?)",
+                    currencyAmounts);
+        }
+    }
+
+    private static void printPlan(JdbcTemplate jdbcTemplate, String sql) {
+        for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql)) {
+            System.out.println(row.values().iterator().next().toString().replaceAll("\\s+", " "));
+        }
+    }
+}
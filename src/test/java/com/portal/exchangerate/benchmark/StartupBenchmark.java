@@ -0,0 +1,76 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.ExchangeRateApplication;
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application startup against a deliberately slow local upstream stub: the time until {@code run()} returns
+ * (the application is started and serves requests) and the time until the readiness probe is up,
+ * i.e. until the first rate snapshot is loaded. Before the initial load moved off the startup path both were
+ * the same, bounded below by the upstream latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"3000"})
+    public long upstreamLatencyMillis;
+
+    private StubFxRatesServer stubServer;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubServer = StubFxRatesServer.start(40, Duration.ofMillis(upstreamLatencyMillis));
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeContext() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stubServer.close();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext untilStarted() {
+        context = start();
+        return context;
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext untilReady() throws InterruptedException {
+        context = start();
+        DataUpdateScheduler dataUpdateScheduler = context.getBean(DataUpdateScheduler.class);
+        while (!dataUpdateScheduler.isInitialLoadCompleted()) {
+            Thread.sleep(5);
+        }
+        return context;
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ExchangeRateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--fx.rates.webservice.base-url=" + stubServer.getBaseUrl(),
+                        "--fx.rates.archive.path=",
+                        "--spring.datasource.url=jdbc:h2:mem:startup" + System.nanoTime(),
+                        "--logging.level.root=warn");
+    }
+}
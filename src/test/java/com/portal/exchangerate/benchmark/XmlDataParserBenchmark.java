@@ -0,0 +1,64 @@
+package com.portal.exchangerate.benchmark;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.service.XmlDataParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StAX {@link XmlDataParser} against the previous DOM implementation on getFxRatesForCurrency payloads of
+ * growing history length. Run with {@code -prof gc} to compare allocation per parsed payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlDataParserBenchmark {
+
+    @Param({"30", "3650"})
+    public int days;
+
+    private final XmlDataParser staxParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+    private final DomXmlDataParser domParser = new DomXmlDataParser();
+
+    private String xmlData;
+    private byte[] xmlBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDate to = LocalDate.parse("2024-03-01");
+        xmlData = StubFxRatesServer.fxRatesXml("LT", List.of("EUR", "USD"), to.minusDays(days - 1), to);
+        xmlBytes = xmlData.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<FxRateDTO> domFromString() {
+        return domParser.parseExchangeRates(xmlData);
+    }
+
+    @Benchmark
+    public List<FxRateDTO> staxFromString() {
+        return staxParser.parseExchangeRates(xmlData);
+    }
+
+    @Benchmark
+    public List<FxRateDTO> staxFromStream() {
+        return staxParser.parseExchangeRatesStream(new ByteArrayInputStream(xmlBytes));
+    }
+
+    @Benchmark
+    public void staxStreamingConsumer(Blackhole blackhole) {
+        staxParser.parseExchangeRatesStream(new ByteArrayInputStream(xmlBytes), blackhole::consume);
+    }
+}
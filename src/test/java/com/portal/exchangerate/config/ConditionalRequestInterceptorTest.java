@@ -0,0 +1,129 @@
+package com.portal.exchangerate.config;
+
+import com.portal.exchangerate.controller.FxRateCompactController;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import com.portal.exchangerate.service.FxRateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "fx.rates.archive.path=")
+@AutoConfigureMockMvc
+class ConditionalRequestInterceptorTest {
+
+    private static final Instant LAST_UPDATE_TIME = Instant.parse("2024-03-01T12:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private FxRateService fxRateService;
+
+    @MockBean
+    private DataUpdateScheduler dataUpdateScheduler;
+
+    @BeforeEach
+    void setUp() {
+        // A fresh ETag, so no test sees a body prepared by another one (PreparedResponseFilter)
+        eventPublisher.publishEvent(new FxRatesUpdatedEvent("scheduler", List.of()));
+        when(dataUpdateScheduler.getLastUpdateTime()).thenReturn(LAST_UPDATE_TIME);
+        when(fxRateService.getCurrencies()).thenReturn(List.of(new CcyDTO("USD", "JAV doleris", 840, "2")));
+    }
+
+    @Test
+    void notModifiedTest() throws Exception {
+        String etag = mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_UPDATE_TIME.toEpochMilli()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/fx-rate/currency-list").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/fx-rate/currency-list").header(HttpHeaders.IF_MODIFIED_SINCE, LAST_UPDATE_TIME.toEpochMilli()))
+                .andExpect(status().isNotModified());
+
+        verify(fxRateService, times(1)).getCurrencies();
+    }
+
+    @Test
+    void updateChangesETagTest() throws Exception {
+        String etag = mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        eventPublisher.publishEvent(new FxRatesUpdatedEvent("backfill", List.of()));
+
+        String updatedETag = mockMvc.perform(get("/api/fx-rate/currency-list").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updatedETag);
+    }
+
+    @Test
+    void representationChangesETagTest() throws Exception {
+        String etag = mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String compactETag = mockMvc.perform(get("/api/fx-rate/currency-list").accept(FxRateCompactController.COMPACT_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String availableETag = mockMvc.perform(get("/api/fx-rate/available-currency-list"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, compactETag);
+        assertNotEquals(etag, availableETag);
+        assertEquals(etag, mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void collidingRequestsGetDistinctETagsTest() throws Exception {
+        when(fxRateService.getCurrentFxRates(any(ExchangeRateType.class), isNull(), isNull())).thenReturn(List.of());
+
+        // With a 32-bit hash of URI, query and Accept, this query gave EU the ETag of plain LT
+        String ltETag = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String euETag = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/EU?x=feaDai"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(ltETag, euETag);
+
+        // A cache revalidating the EU variant with the LT tag gets the EU body, not a 304
+        mockMvc.perform(get("/api/fx-rate/current-exchange-rates/EU?x=feaDai").header(HttpHeaders.IF_NONE_MATCH, ltETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, euETag));
+    }
+
+    @Test
+    void onlyReadsAreConditionalTest() throws Exception {
+        mockMvc.perform(post("/api/fx-rate/convert").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
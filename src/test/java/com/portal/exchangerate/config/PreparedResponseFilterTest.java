@@ -0,0 +1,192 @@
+package com.portal.exchangerate.config;
+
+import com.portal.exchangerate.controller.FxRateCompactController;
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import com.portal.exchangerate.service.FxRateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "fx.rates.archive.path=")
+@AutoConfigureMockMvc
+class PreparedResponseFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private FxRateService fxRateService;
+
+    @MockBean
+    private DataUpdateScheduler dataUpdateScheduler;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher.publishEvent(new FxRatesUpdatedEvent("scheduler", List.of()));
+        when(fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, null)).thenReturn(List.of(createFxRateDTO()));
+        when(fxRateService.getCurrencies()).thenReturn(List.of(new CcyDTO("USD", "JAV doleris", 840, "2")));
+    }
+
+    @Test
+    void preparedBodyTest() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.fxRateDTOList[0].rate").value(1.083))
+                .andReturn().getResponse();
+        MockHttpServletResponse second = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn().getResponse();
+
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals(first.getContentType(), second.getContentType());
+        assertEquals(first.getContentAsByteArray().length, second.getContentLength());
+        verify(fxRateService, times(1)).getCurrentFxRates(ExchangeRateType.LT, null, null);
+    }
+
+    @Test
+    void gzipTest() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Long enough for gzip to pay off
+        when(fxRateService.getAvailableCurrencies()).thenReturn(Collections.nCopies(50, new CcyDTO("USD", "JAV doleris", 840, "2")));
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = mockMvc.perform(get("/api/fx-rate/available-currency-list")
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andReturn().getResponse();
+            String json = new String(gunzip(response.getContentAsByteArray()));
+            assertTrue(json.startsWith("{\"_embedded\":{\"ccyDTOList\":[{\"currencyCode\":\"USD\""), json);
+        }
+
+        assertArrayEquals(body, mockMvc.perform(get("/api/fx-rate/currency-list").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray());
+        verify(fxRateService, times(1)).getCurrencies();
+        verify(fxRateService, times(1)).getAvailableCurrencies();
+    }
+
+    @Test
+    void updateEvictsTest() throws Exception {
+        mockMvc.perform(get("/api/fx-rate/currency-list")).andExpect(status().isOk());
+
+        when(fxRateService.getCurrencies()).thenReturn(List.of(new CcyDTO("GBP", "Svaras sterlingų", 826, "2")));
+        eventPublisher.publishEvent(new FxRatesUpdatedEvent("backfill", List.of()));
+
+        mockMvc.perform(get("/api/fx-rate/currency-list"))
+                .andExpect(jsonPath("$._embedded.ccyDTOList[0].currencyCode").value("GBP"));
+        verify(fxRateService, times(2)).getCurrencies();
+    }
+
+    @Test
+    void notPreparedTest() throws Exception {
+        // The compact representation is streamed as before
+        for (int i = 0; i < 2; i++) {
+            MvcResult result = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT").accept(FxRateCompactController.COMPACT_JSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rates.USD[0][1]").value(1.083));
+        }
+        verify(fxRateService, times(2)).getCurrentFxRates(ExchangeRateType.LT, null, null);
+
+        // CORS requests get their headers from the dispatcher
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/fx-rate/currency-list").header(HttpHeaders.ORIGIN, "http://localhost:4200"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "http://localhost:4200"));
+        }
+        verify(fxRateService, times(2)).getCurrencies();
+    }
+
+    @Test
+    void collidingETagTest() throws Exception {
+        when(fxRateService.getCurrentFxRates(ExchangeRateType.EU, null, null)).thenReturn(List.of());
+
+        // This query made EU collide with plain LT when the representation part of the ETag was a 32-bit hash
+        MockHttpServletResponse eu = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/EU?x=feaDai"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        MockHttpServletResponse lt = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.fxRateDTOList[0].rate").value(1.083))
+                .andReturn().getResponse();
+
+        assertNotEquals(eu.getHeader(HttpHeaders.ETAG), lt.getHeader(HttpHeaders.ETAG));
+        assertFalse(Arrays.equals(eu.getContentAsByteArray(), lt.getContentAsByteArray()));
+        verify(fxRateService, times(1)).getCurrentFxRates(ExchangeRateType.LT, null, null);
+    }
+
+    @Test
+    void acceptsGzipTest() {
+        assertTrue(PreparedResponseFilter.acceptsGzip("gzip"));
+        assertTrue(PreparedResponseFilter.acceptsGzip("br;q=1.0, GZIP;q=0.8, *;q=0.1"));
+        assertTrue(PreparedResponseFilter.acceptsGzip("*"));
+        assertFalse(PreparedResponseFilter.acceptsGzip(null));
+        assertFalse(PreparedResponseFilter.acceptsGzip("identity"));
+        assertFalse(PreparedResponseFilter.acceptsGzip("br, gzip;q=0"));
+        assertFalse(PreparedResponseFilter.acceptsGzip("x-gzip"));
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static FxRateDTO createFxRateDTO() {
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+
+        CcyAmtDTO usd = new CcyAmtDTO();
+        usd.setTargetCurrency("USD");
+        usd.setAmount(new BigDecimal("1.0830"));
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType("LT");
+        fxRateDTO.setDate(LocalDate.of(2024, 3, 1));
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal("1.0830"));
+        fxRateDTO.setCurrencyAmounts(List.of(eur, usd));
+        return fxRateDTO;
+    }
+}
@@ -0,0 +1,135 @@
+package com.portal.exchangerate.controller;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "fx.rates.archive.path=")
+@AutoConfigureMockMvc
+class FxRateCompactControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FxRateService fxRateService;
+
+    @Test
+    void compactByAcceptHeaderTest() throws Exception {
+        when(fxRateService.getFxRates(eq(ExchangeRateType.LT), any(), eq("USD"), eq("2024-02-29"), eq("2024-03-01")))
+                .thenReturn(List.of(createFxRateDTO("2024-03-01", "USD", "1.0830"), createFxRateDTO("2024-02-29", "USD", "1.0826")));
+
+        MvcResult result = mockMvc.perform(get("/api/fx-rate/exchange-rates/LT/USD/2024-02-29/2024-03-01").accept(FxRateCompactController.COMPACT_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FxRateCompactController.COMPACT_JSON))
+                .andExpect(jsonPath("$.type").value("LT"))
+                .andExpect(jsonPath("$.baseCurrency").value("EUR"))
+                .andExpect(jsonPath("$.rates.USD.length()").value(2))
+                .andExpect(jsonPath("$.rates.USD[0][0]").value("2024-03-01"))
+                .andExpect(jsonPath("$.rates.USD[0][1]").value(1.083))
+                .andExpect(jsonPath("$.rates.USD[1][0]").value("2024-02-29"))
+                .andExpect(jsonPath("$._links.self.href", endsWith("/api/fx-rate/exchange-rates/LT/USD/2024-02-29/2024-03-01")));
+    }
+
+    @Test
+    void compactByFormatParameterTest() throws Exception {
+        when(fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, null))
+                .thenReturn(List.of(createFxRateDTO("2024-03-01", "USD", "1.0830"), createFxRateDTO("2024-03-01", "GBP", "0.85663")));
+
+        MvcResult result = mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT?format=compact"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FxRateCompactController.COMPACT_JSON))
+                .andExpect(jsonPath("$.rates.USD[0][1]").value(1.083))
+                .andExpect(jsonPath("$.rates.GBP[0][0]").value("2024-03-01"))
+                .andExpect(jsonPath("$._links.self.href", endsWith("/api/fx-rate/current-exchange-rates/LT?format=compact")));
+    }
+
+    @Test
+    void compactCurrencyListTest() throws Exception {
+        when(fxRateService.getCurrencies()).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/fx-rate/currency-list").accept(FxRateCompactController.COMPACT_JSON))
+                .andExpect(status().isNoContent());
+
+        when(fxRateService.getCurrencies()).thenReturn(List.of(new CcyDTO("USD", "JAV doleris", 840, "2")));
+
+        MvcResult result = mockMvc.perform(get("/api/fx-rate/currency-list").param("format", "compact"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencies[0][0]").value("USD"))
+                .andExpect(jsonPath("$.currencies[0][2]").value(840))
+                .andExpect(jsonPath("$.currencies[0][3]").value("2"));
+    }
+
+    @Test
+    void hateoasRemainsDefaultTest() throws Exception {
+        when(fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, null))
+                .thenReturn(List.of(createFxRateDTO("2024-03-01", "USD", "1.0830")));
+
+        mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.fxRateDTOList[0].rate").value(1.083))
+                .andExpect(jsonPath("$._embedded.fxRateDTOList[0]._links.self.href").exists());
+
+        mockMvc.perform(get("/api/fx-rate/current-exchange-rates/LT").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.fxRateDTOList[0].rate").value(1.083));
+    }
+
+    private FxRateDTO createFxRateDTO(String date, String currency, String amount) {
+
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+        currencyAmounts.add(eur);
+
+        CcyAmtDTO target = new CcyAmtDTO();
+        target.setTargetCurrency(currency);
+        target.setAmount(new BigDecimal(amount));
+        currencyAmounts.add(target);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType("LT");
+        fxRateDTO.setDate(LocalDate.parse(date));
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal(amount));
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        return fxRateDTO;
+    }
+}
@@ -1,9 +1,22 @@
 package com.portal.exchangerate.controller;
 
+import com.portal.exchangerate.dto.BackfillResultDTO;
 import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.ConversionDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import com.portal.exchangerate.dto.ConversionResultDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.BackfillStatus;
 import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.service.FxRateBackfillService;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.repository.CurrencyRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.service.FxRateHistoryService;
 import com.portal.exchangerate.service.FxRateService;
+import com.portal.exchangerate.service.FxRateServiceImpl;
+import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.NonUniqueResultException;
 import org.junit.jupiter.api.Test;
@@ -14,15 +27,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class FxRateControllerTest {
@@ -30,6 +52,9 @@ class FxRateControllerTest {
     @Mock
     private FxRateService fxRateService;
 
+    @Mock
+    private FxRateBackfillService fxRateBackfillService;
+
     @InjectMocks
     private FxRateController fxRateController;
 
@@ -193,4 +218,95 @@ class FxRateControllerTest {
 
         verify(fxRateService, times(1)).calculateCrossRate("USD", "EUR");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getCrossRatesTest() {
+        when(fxRateService.getCrossRates("USD")).thenReturn(Map.of("EUR", BigDecimal.valueOf(0.92), "GBP", BigDecimal.valueOf(0.79)));
+
+        ResponseEntity<Map<String, BigDecimal>> response = fxRateController.getCrossRates("USD");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+
+        // Unknown currency
+        when(fxRateService.getCrossRates("XXX")).thenReturn(Collections.emptyMap());
+
+        response = fxRateController.getCrossRates("XXX");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void backfillTest() {
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 1, 31);
+        BackfillResultDTO progress = new BackfillResultDTO("LT", "USD", startDate, endDate, BackfillStatus.RUNNING,
+                LocalDateTime.of(2024, 2, 1, 10, 0), null, 0, 0, 0, 0, 0);
+        when(fxRateBackfillService.startBackfill(ExchangeRateType.LT, startDate, endDate, "USD")).thenReturn(progress);
+
+        ResponseEntity<BackfillResultDTO> response = fxRateController.backfill(ExchangeRateType.LT, startDate, endDate, "USD");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertSame(progress, response.getBody());
+        assertTrue(response.getHeaders().getLocation().getPath().endsWith("/api/fx-rate/backfill"));
+
+        // Invalid range
+        when(fxRateBackfillService.startBackfill(ExchangeRateType.LT, endDate, startDate, null)).thenThrow(new IllegalArgumentException("Invalid range"));
+        assertEquals(HttpStatus.BAD_REQUEST, fxRateController.backfill(ExchangeRateType.LT, endDate, startDate, null).getStatusCode());
+
+        // Backfill already running
+        when(fxRateBackfillService.startBackfill(ExchangeRateType.EU, startDate, endDate, null)).thenThrow(new IllegalStateException("Running"));
+        assertEquals(HttpStatus.CONFLICT, fxRateController.backfill(ExchangeRateType.EU, startDate, endDate, null).getStatusCode());
+    }
+
+    @Test
+    void getBackfillTest() {
+        when(fxRateBackfillService.getLastBackfill()).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NO_CONTENT, fxRateController.getBackfill().getStatusCode());
+
+        BackfillResultDTO result = new BackfillResultDTO("LT", "USD", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31),
+                BackfillStatus.COMPLETED, LocalDateTime.of(2024, 2, 1, 10, 0), LocalDateTime.of(2024, 2, 1, 10, 1), 1, 0, 1, 0, 31);
+        when(fxRateBackfillService.getLastBackfill()).thenReturn(Optional.of(result));
+
+        ResponseEntity<BackfillResultDTO> response = fxRateController.getBackfill();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(result, response.getBody());
+    }
+
+    @Test
+    void convertTest() {
+        ConversionRequestDTO request = new ConversionRequestDTO("EUR", List.of("USD"), BigDecimal.TEN, null);
+        ConversionResultDTO result = new ConversionResultDTO("LT", LocalDate.of(2024, 3, 1), 1,
+                List.of(new ConversionDTO("EUR", "USD", BigDecimal.TEN, new BigDecimal("1.083"), new BigDecimal("10.83"))));
+        when(fxRateService.convert(request)).thenReturn(result);
+
+        ResponseEntity<ConversionResultDTO> response = fxRateController.convert(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(result, response.getBody());
+
+        // Nothing to convert
+        ConversionRequestDTO emptyRequest = new ConversionRequestDTO();
+        when(fxRateService.convert(emptyRequest)).thenThrow(new IllegalArgumentException("No conversions requested"));
+        assertEquals(HttpStatus.BAD_REQUEST, fxRateController.convert(emptyRequest).getStatusCode());
+    }
+
+    @Test
+    void convertAmountOutOfRangeTest() throws Exception {
+        FxRateServiceImpl fxRateServiceImpl = new FxRateServiceImpl(mock(XmlDataParser.class), mock(CurrencyRepository.class),
+                mock(WebServiceClient.class), mock(FxRateRepository.class), new RateSnapshotHolder(), mock(FxRateHistoryService.class));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FxRateController(fxRateServiceImpl, fxRateBackfillService)).build();
+
+        for (String amount : List.of("1e10000000", "1e-10000000", "123456789012345678901", "0.0000000000000000001")) {
+            String conversions = ",{\"from\":\"USD\",\"to\":\"JPY\",\"amount\":" + amount + "}";
+            String content = "{\"conversions\":[" + conversions.substring(1) + conversions.repeat(999) + "]}";
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> mockMvc.perform(post("/api/fx-rate/convert")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                    .andExpect(status().isBadRequest()), amount);
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.portal.exchangerate.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
 
+import com.portal.exchangerate.dto.LastUpdateDTO;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
 
 @ExtendWith(MockitoExtension.class)
 class HomeControllerTest {
 
+    @Mock
+    private DataUpdateScheduler dataUpdateScheduler;
+
     @InjectMocks
     private HomeController homeController;
 
@@ -19,4 +31,24 @@ class HomeControllerTest {
         String result = homeController.redirect();
         assertEquals("forward:/", result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getLastUpdateTest() {
+        when(dataUpdateScheduler.getLastUpdate()).thenReturn(LocalDate.parse("2024-03-04"));
+
+        ResponseEntity<EntityModel<LastUpdateDTO>> response = homeController.getLastUpdate();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(LocalDate.parse("2024-03-04").atStartOfDay(), response.getBody().getContent().getLastUpdate());
+    }
+
+    @Test
+    void getLastUpdateBeforeInitialLoadTest() {
+        when(dataUpdateScheduler.getLastUpdate()).thenReturn(null);
+
+        ResponseEntity<EntityModel<LastUpdateDTO>> response = homeController.getLastUpdate();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+}
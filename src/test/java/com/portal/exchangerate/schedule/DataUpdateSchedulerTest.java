@@ -4,21 +4,39 @@ import com.portal.exchangerate.api.WebServiceClient;
 import com.portal.exchangerate.dto.CcyAmtDTO;
 import com.portal.exchangerate.dto.CcyDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import com.portal.exchangerate.service.FxRateIngestService;
+import com.portal.exchangerate.service.FxRateIngestService.UpsertResult;
 import com.portal.exchangerate.service.XmlDataParser;
+import com.portal.exchangerate.snapshot.RateArchive;
+import com.portal.exchangerate.snapshot.RateSnapshot;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class DataUpdateSchedulerTest {
@@ -29,12 +47,31 @@ class DataUpdateSchedulerTest {
     @Mock
     private WebServiceClient webServiceClient;
 
+    @Mock
+    private FxRateIngestService fxRateIngestService;
+
+    @Spy
+    private RateSnapshotHolder rateSnapshotHolder = new RateSnapshotHolder();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RateArchive rateArchive;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private InitialLoadHealthIndicator initialLoadHealthIndicator = new InitialLoadHealthIndicator();
+
     @InjectMocks
     private DataUpdateScheduler dataUpdateScheduler;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(fxRateIngestService.saveCurrencyListAndExchangeRates(any(), any())).thenReturn(new UpsertResult(List.of(), 2, 2, 0, 0));
     }
 
     @Test
@@ -62,31 +99,165 @@ class DataUpdateSchedulerTest {
     @Test
     void updateDataSuccessTest() {
 
-        when(webServiceClient.getCurrencyList()).thenReturn(getSampleCurrencyXmlData());
-        when(webServiceClient.getCurrentFxRates(anyString())).thenReturn(getSampleFxRatesXmlData());
-
-        when(xmlDataParser.parseCurrencyList(any())).thenReturn(getSampleCurrencyList());
-        when(xmlDataParser.parseExchangeRates(any())).thenReturn(getSampleFxRateList());
+        when(webServiceClient.getCurrencyList(any())).thenReturn(getSampleCurrencyList());
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
 
         assertDoesNotThrow(() -> dataUpdateScheduler.updateData());
+        verify(webServiceClient, times(1)).getCurrencyList(any());
+        verify(webServiceClient, times(2)).getCurrentFxRates(anyString(), any());
+        verify(fxRateIngestService, times(1)).saveCurrencyListAndExchangeRates(eq(getSampleCurrencyList()), argThat(fxRates -> fxRates.size() == 2));
+        verify(rateArchive, times(1)).append(argThat(fxRates -> fxRates.size() == 2));
     }
 
     @Test
-    void updateDataExceptionTest() {
+    void initialDataLoadFromArchiveTest() {
 
-        when(webServiceClient.getCurrencyList()).thenThrow(new RuntimeException("WebServiceClient exception"));
+        when(rateArchive.getLatestFxRates()).thenReturn(getSampleFxRateList());
+        when(webServiceClient.getCurrencyList(any())).thenReturn(getSampleCurrencyList());
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
 
-        assertDoesNotThrow(() -> dataUpdateScheduler.updateData());
+        dataUpdateScheduler.initialDataLoad();
+
+        // Archived rates are served at once, the refresh follows in the background
+        assertEquals(0, BigDecimal.valueOf(1.18).compareTo(rateSnapshotHolder.get().getLatestRate(ExchangeRateType.LT, "USD")));
+        assertEquals(Status.UP, initialLoadHealthIndicator.health().getStatus());
+        verify(fxRateIngestService, timeout(5000)).saveCurrencyListAndExchangeRates(any(), any());
     }
 
-    private String getSampleCurrencyXmlData() {
+    @Test
+    void restoreArchivedRatesSetsLastUpdateTest() {
+        List<FxRateDTO> archivedFxRates = getSampleFxRateList();
+        archivedFxRates.get(0).setDate(LocalDate.of(2024, 3, 4));
+        when(rateArchive.getLatestFxRates()).thenReturn(archivedFxRates);
+
+        assertTrue(dataUpdateScheduler.restoreArchivedRates());
+
+        // /api/last-update reports the archived rate date until the first refresh
+        assertEquals(LocalDate.of(2024, 3, 4), dataUpdateScheduler.getLastUpdate());
+        assertEquals(LocalDate.of(2024, 3, 4).atStartOfDay(ZoneId.systemDefault()).toInstant(), dataUpdateScheduler.getLastUpdateTime());
+    }
+
+    @Test
+    void initialDataLoadIsNotReadyUntilLoadedTest() throws InterruptedException {
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(webServiceClient.getCurrencyList(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return getSampleCurrencyList();
+        });
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
 
-        return "<Ccy>...</Ccy>";
+        dataUpdateScheduler.initialDataLoad();
+
+        // The application started, but the readiness probe stays out of service while the web service is slow
+        assertFalse(dataUpdateScheduler.isInitialLoadCompleted());
+        assertEquals(Status.OUT_OF_SERVICE, initialLoadHealthIndicator.health().getStatus());
+
+        release.countDown();
+
+        verify(initialLoadHealthIndicator, timeout(5000)).markUp();
+        assertEquals(Status.UP, initialLoadHealthIndicator.health().getStatus());
+        assertTrue(dataUpdateScheduler.isInitialLoadCompleted());
+        assertFalse(rateSnapshotHolder.get().isEmpty());
     }
 
-    private String getSampleFxRatesXmlData() {
+    @Test
+    void initialDataLoadRetriesTest() {
+
+        ReflectionTestUtils.setField(dataUpdateScheduler, "initialLoadRetryInterval", Duration.ofMillis(10));
+        when(webServiceClient.getCurrencyList(any()))
+                .thenThrow(new RuntimeException("WebServiceClient exception"))
+                .thenReturn(getSampleCurrencyList());
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
+
+        dataUpdateScheduler.initialDataLoad();
+
+        verify(initialLoadHealthIndicator, timeout(5000)).markUp();
+        verify(webServiceClient, times(2)).getCurrencyList(any());
+        verify(fxRateIngestService, times(1)).saveCurrencyListAndExchangeRates(any(), any());
+    }
+
+    @Test
+    void updateDataPublishesSnapshotTest() {
+
+        when(webServiceClient.getCurrencyList(any())).thenReturn(getSampleCurrencyList());
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
+
+        dataUpdateScheduler.updateData();
+
+        RateSnapshot snapshot = rateSnapshotHolder.get();
+        assertFalse(snapshot.isEmpty());
+        assertEquals(0, BigDecimal.valueOf(1.18).compareTo(snapshot.getLatestRate(ExchangeRateType.LT, "USD")));
+        assertEquals(LocalDate.now(), dataUpdateScheduler.getLastUpdate());
+        assertNotNull(dataUpdateScheduler.getLastUpdateDuration());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof FxRatesUpdatedEvent updatedEvent
+                && updatedEvent.getChanges().stream().anyMatch(change -> change.getType().equals("LT") && change.getCurrency().equals("USD")
+                        && change.getRate().compareTo(BigDecimal.valueOf(1.18)) == 0)));
+
+        // The same rates again change nothing
+        dataUpdateScheduler.updateData();
+
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof FxRatesUpdatedEvent updatedEvent
+                && updatedEvent.getChanges().isEmpty()));
+    }
+
+    @Test
+    void updateDataFetchesConcurrentlyTest() {
+
+        // Each fetch waits until all three are in flight, which only happens if they run concurrently
+        CountDownLatch fetchesStarted = new CountDownLatch(3);
+        when(webServiceClient.getCurrencyList(any())).thenAnswer(invocation -> {
+            awaitAll(fetchesStarted);
+            return getSampleCurrencyList();
+        });
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenAnswer(invocation -> {
+            awaitAll(fetchesStarted);
+            return getSampleFxRateList();
+        });
+
+        dataUpdateScheduler.updateData();
+
+        assertEquals(0, fetchesStarted.getCount());
+        assertEquals(LocalDate.now(), dataUpdateScheduler.getLastUpdate());
+    }
+
+    @Test
+    void updateDataMetricsTest() {
+
+        when(webServiceClient.getCurrencyList(any())).thenReturn(getSampleCurrencyList());
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
+        assertTrue(Double.isNaN(meterRegistry.get("fx.rates.snapshot.age").gauge().value()));
+
+        assertTrue(dataUpdateScheduler.updateData());
+
+        assertEquals(1, meterRegistry.get("fx.update").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("fx.update.stage").tag("stage", "LT").timer().count());
+        assertEquals(1, meterRegistry.get("fx.update.stage").tag("stage", "persist").timer().count());
+        assertEquals(2, meterRegistry.get("fx.update.rows.written").tag("table", "fx_rates").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("fx.update.rates").tag("result", "inserted").counter().count());
+        assertTrue(meterRegistry.get("fx.rates.snapshot.age").gauge().value() >= 0);
+
+        when(webServiceClient.getCurrencyList(any())).thenThrow(new RuntimeException("WebServiceClient exception"));
+        assertFalse(dataUpdateScheduler.updateData());
+        assertEquals(1, meterRegistry.get("fx.update").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void updateDataExceptionTest() {
+
+        when(webServiceClient.getCurrencyList(any())).thenThrow(new RuntimeException("WebServiceClient exception"));
+        when(webServiceClient.getCurrentFxRates(anyString(), any())).thenReturn(getSampleFxRateList());
+
+        assertFalse(dataUpdateScheduler.updateData());
+        assertSame(RateSnapshot.EMPTY, rateSnapshotHolder.get());
+        verifyNoInteractions(fxRateIngestService, eventPublisher);
+    }
 
-        return "<FxRates>...</FxRates>";
+    private void awaitAll(CountDownLatch latch) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Fetches did not run concurrently");
+        }
     }
 
     private List<CcyDTO> getSampleCurrencyList() {
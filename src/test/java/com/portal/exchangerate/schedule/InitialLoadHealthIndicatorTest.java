@@ -0,0 +1,42 @@
+package com.portal.exchangerate.schedule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "fx.rates.archive.path=")
+@AutoConfigureMockMvc
+class InitialLoadHealthIndicatorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InitialLoadHealthIndicator initialLoadHealthIndicator;
+
+    // Never loads anything, so the initial load completes only when the test says so
+    @MockBean
+    private DataUpdateScheduler dataUpdateScheduler;
+
+    @Test
+    void readinessProbeWaitsForInitialLoadTest() throws Exception {
+        // The application has started and accepts traffic, but no rates are loaded yet
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("OUT_OF_SERVICE"));
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk());
+
+        initialLoadHealthIndicator.markUp();
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+}
@@ -0,0 +1,211 @@
+package com.portal.exchangerate.service;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.dto.BackfillResultDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.enums.BackfillStatus;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import com.portal.exchangerate.model.BackfillCheckpoint;
+import com.portal.exchangerate.repository.BackfillCheckpointRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.schedule.DataUpdateScheduler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"fx.rates.backfill.chunk-days=30", "fx.rates.backfill.parallelism=3", "fx.rates.archive.path="})
+class FxRateBackfillServiceTest {
+
+    private static final StubFxRatesServer stubServer = startStubServer();
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 1, 1);
+    private static final LocalDate END_DATE = LocalDate.of(2023, 3, 31);
+
+    @Autowired
+    private FxRateBackfillService fxRateBackfillService;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private FxRateRepository fxRateRepository;
+
+    @Autowired
+    private BackfillCheckpointRepository backfillCheckpointRepository;
+
+    @Autowired
+    private DataUpdateScheduler dataUpdateScheduler;
+
+    @DynamicPropertySource
+    static void webServiceProperties(DynamicPropertyRegistry registry) {
+        registry.add("fx.rates.webservice.base-url", stubServer::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.close();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // The initial load runs in the background; let it finish so it does not write while rates are counted
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!dataUpdateScheduler.isInitialLoadCompleted() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(dataUpdateScheduler.isInitialLoadCompleted());
+        backfillCheckpointRepository.deleteAll();
+    }
+
+    @Test
+    void backfillForCurrencyIsIdempotentAndResumableTest() {
+        BackfillResultDTO result = fxRateBackfillService.backfill(ExchangeRateType.LT, START_DATE, END_DATE, "USD");
+
+        // 2023-01-01 - 2023-03-31 on a 30 day grid: [01-01, 01-22], [01-23, 02-21], [02-22, 03-23], [03-24, 03-31]
+        assertEquals(4, result.getTotalChunks());
+        assertEquals(4, result.getCompletedChunks());
+        assertEquals(0, result.getFailedChunks());
+        assertEquals(90, result.getInsertedRates());
+        assertEquals(4, backfillCheckpointRepository.count());
+
+        // Second run is served entirely from checkpoints
+        int requestCount = stubServer.getRequestCount("getFxRatesForCurrency");
+        result = fxRateBackfillService.backfill(ExchangeRateType.LT, START_DATE, END_DATE, "USD");
+        assertEquals(4, result.getSkippedChunks());
+        assertEquals(0, result.getInsertedRates());
+        assertEquals(requestCount, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        // A lost checkpoint is fetched again, but nothing is inserted twice
+        BackfillCheckpoint lastCheckpoint = backfillCheckpointRepository.findAll().stream()
+                .max(Comparator.comparing(BackfillCheckpoint::getChunkStart))
+                .orElseThrow();
+        backfillCheckpointRepository.delete(lastCheckpoint);
+        long storedRates = fxRateRepository.count();
+
+        result = fxRateBackfillService.backfill(ExchangeRateType.LT, START_DATE, END_DATE, "USD");
+        assertEquals(3, result.getSkippedChunks());
+        assertEquals(1, result.getCompletedChunks());
+        assertEquals(0, result.getInsertedRates());
+        assertEquals(requestCount + 1, stubServer.getRequestCount("getFxRatesForCurrency"));
+        assertEquals(storedRates, fxRateRepository.count());
+    }
+
+    @Test
+    void backfillAllCurrenciesTest() {
+        LocalDate startDate = LocalDate.of(2022, 6, 1);
+        LocalDate endDate = LocalDate.of(2022, 6, 7);
+        int requestCount = stubServer.getRequestCount("getFxRates");
+
+        BackfillResultDTO result = fxRateBackfillService.backfill(ExchangeRateType.EU, startDate, endDate, null);
+
+        // One getFxRates call per day, one rate per non-EUR currency
+        assertEquals(7, stubServer.getRequestCount("getFxRates") - requestCount);
+        assertEquals(7 * (stubServer.getCurrencyCodes().size() - 1), result.getInsertedRates());
+        assertEquals(0, result.getFailedChunks());
+
+        // Single-currency backfill within the same range is already covered
+        result = fxRateBackfillService.backfill(ExchangeRateType.EU, startDate, endDate, "GBP");
+        assertEquals(result.getTotalChunks(), result.getSkippedChunks());
+        assertEquals(0, result.getInsertedRates());
+    }
+
+    @Test
+    void backfillEvictsAvailableCurrencyCacheTest() {
+        List<CcyDTO> availableCurrencies = fxRateService.getAvailableCurrencies();
+        assertEquals(List.of("EUR", "GBP", "PLN", "SEK", "USD"), availableCurrencies.stream().map(CcyDTO::getCurrencyCode).toList());
+        assertSame(availableCurrencies, fxRateService.getAvailableCurrencies());
+
+        BackfillResultDTO result = fxRateBackfillService.backfill(ExchangeRateType.LT, LocalDate.of(2021, 5, 1), LocalDate.of(2021, 5, 3), "PLN");
+
+        assertEquals(3, result.getInsertedRates());
+        assertNotSame(availableCurrencies, fxRateService.getAvailableCurrencies());
+    }
+
+    @Test
+    void startBackfillRunsInBackgroundTest() {
+        LocalDate startDate = LocalDate.of(2020, 9, 1);
+        LocalDate endDate = LocalDate.of(2020, 9, 30);
+
+        BackfillResultDTO progress = fxRateBackfillService.startBackfill(ExchangeRateType.LT, startDate, endDate, "SEK");
+        assertEquals(BackfillStatus.RUNNING, progress.getStatus());
+        assertEquals("SEK", progress.getCurrency());
+        assertNotNull(progress.getStartedAt());
+
+        BackfillResultDTO result = awaitBackfill();
+        assertEquals(BackfillStatus.COMPLETED, result.getStatus());
+        assertNotNull(result.getFinishedAt());
+        assertEquals(result.getTotalChunks(), result.getCompletedChunks());
+        assertEquals(30, result.getInsertedRates());
+
+        // The guard is released once the background run has finished
+        result = fxRateBackfillService.backfill(ExchangeRateType.LT, startDate, endDate, "SEK");
+        assertEquals(result.getTotalChunks(), result.getSkippedChunks());
+    }
+
+    @Test
+    void backfillStartedRightAfterCompletionKeepsTheGuardTest() {
+        fxRateBackfillService.startBackfill(ExchangeRateType.LT, LocalDate.of(2019, 3, 1), LocalDate.of(2019, 3, 10), "USD");
+        assertEquals(BackfillStatus.COMPLETED, awaitBackfill().getStatus());
+
+        stubServer.setLatency(Duration.ofMillis(500));
+        try {
+            // Started as soon as the first one reports completion; its thread must not free the guard afterwards
+            fxRateBackfillService.startBackfill(ExchangeRateType.LT, LocalDate.of(2019, 4, 1), LocalDate.of(2019, 4, 10), "USD");
+            assertThrows(IllegalStateException.class,
+                    () -> fxRateBackfillService.startBackfill(ExchangeRateType.LT, LocalDate.of(2019, 5, 1), LocalDate.of(2019, 5, 10), "USD"));
+        } finally {
+            stubServer.setLatency(Duration.ZERO);
+        }
+
+        BackfillResultDTO result = awaitBackfill();
+        assertEquals(BackfillStatus.COMPLETED, result.getStatus());
+        assertEquals(LocalDate.of(2019, 4, 1), result.getStartDate());
+    }
+
+    @Test
+    void invalidRangeTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> fxRateBackfillService.backfill(ExchangeRateType.LT, END_DATE, START_DATE, "USD"));
+    }
+
+    @Test
+    void splitIntoChunksTest() {
+        List<FxRateBackfillService.Chunk> chunks = fxRateBackfillService.splitIntoChunks(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+
+        assertEquals(1, chunks.size());
+        assertEquals(LocalDate.of(2023, 1, 10), chunks.get(0).start());
+        assertEquals(LocalDate.of(2023, 1, 12), chunks.get(0).end());
+    }
+
+    // Polls without sleeping, so the next step follows the final status as closely as a client could
+    private BackfillResultDTO awaitBackfill() {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        BackfillResultDTO result = fxRateBackfillService.getLastBackfill().orElseThrow();
+        while (result.getStatus() == BackfillStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+            result = fxRateBackfillService.getLastBackfill().orElseThrow();
+        }
+        return result;
+    }
+
+    private static StubFxRatesServer startStubServer() {
+        try {
+            return StubFxRatesServer.start(List.of("EUR", "USD", "GBP", "PLN", "SEK"), Duration.ZERO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
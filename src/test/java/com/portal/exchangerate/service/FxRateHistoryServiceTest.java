@@ -0,0 +1,252 @@
+package com.portal.exchangerate.service;
+
+import com.portal.exchangerate.api.StubFxRatesServer;
+import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.snapshot.RateArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateHistoryServiceTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END_DATE = LocalDate.of(2024, 1, 31);
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    private final AtomicLong tickerNanos = new AtomicLong();
+
+    @TempDir
+    Path tempDir;
+
+    private StubFxRatesServer stubServer;
+    private WebServiceClient webServiceClient;
+    private RateArchive rateArchive = new RateArchive("");
+    private SimpleMeterRegistry meterRegistry;
+    private FxRateHistoryService fxRateHistoryService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubServer = StubFxRatesServer.start(List.of("EUR", "USD", "GBP"), Duration.ofMillis(300));
+
+        webServiceClient = new WebServiceClient();
+        ReflectionTestUtils.setField(webServiceClient, "baseUrl", stubServer.getBaseUrl());
+        ReflectionTestUtils.setField(webServiceClient, "readTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(webServiceClient, "httpClient", HttpClient.newHttpClient());
+        fxRateHistoryService = createFxRateHistoryService(10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.close();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCallTest() {
+        List<CompletableFuture<List<FxRateDTO>>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(fxRateHistoryService.getFxRatesForCurrencyAsync("LT", "USD", START_DATE, END_DATE));
+        }
+        assertEquals(1, meterValue("fx.history.coalescing.in.flight"));
+        assertEquals(19, meterValue("fx.history.coalescing.waiters"));
+
+        List<FxRateDTO> fxRates = requests.get(0).join();
+        requests.forEach(request -> assertEquals(fxRates, request.join()));
+
+        assertEquals(31, fxRates.size());
+        assertEquals(1, stubServer.getRequestCount("getFxRatesForCurrency"));
+        assertEquals(1, meterValue("fx.history.coalescing.calls", "result", "miss"));
+        assertEquals(19, meterValue("fx.history.coalescing.calls", "result", "hit"));
+        assertEquals(0, meterValue("fx.history.coalescing.waiters"));
+        assertEquals(0, meterValue("fx.history.coalescing.in.flight"));
+    }
+
+    @Test
+    void differentRequestsAreNotCoalescedTest() {
+        CompletableFuture<List<FxRateDTO>> usdRates = fxRateHistoryService.getFxRatesForCurrencyAsync("LT", "USD", START_DATE, END_DATE);
+        CompletableFuture<List<FxRateDTO>> gbpRates = fxRateHistoryService.getFxRatesForCurrencyAsync("LT", "GBP", START_DATE, END_DATE);
+        CompletableFuture<List<FxRateDTO>> euRates = fxRateHistoryService.getFxRatesForCurrencyAsync("EU", "USD", START_DATE, END_DATE);
+
+        CompletableFuture.allOf(usdRates, gbpRates, euRates).join();
+
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+        assertEquals(3, meterValue("fx.history.coalescing.calls", "result", "miss"));
+    }
+
+    @Test
+    void closedRangeIsServedFromCacheTest() {
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesForCurrency("LT", "USD", START_DATE, END_DATE);
+
+        // Closed ranges never expire
+        tickerNanos.addAndGet(Duration.ofDays(30).toNanos());
+        assertEquals(fxRates, fxRateHistoryService.getFxRatesForCurrency("LT", "USD", START_DATE, END_DATE));
+        fxRateHistoryService.evictOpenRanges();
+        assertEquals(fxRates, fxRateHistoryService.getFxRatesForCurrency("LT", "USD", START_DATE, END_DATE));
+
+        assertEquals(1, stubServer.getRequestCount("getFxRatesForCurrency"));
+        assertEquals(2, meterValue("cache.gets", "cache", FxRateHistoryService.CACHE_NAME, "result", "hit"));
+        assertEquals(1, meterValue("cache.gets", "cache", FxRateHistoryService.CACHE_NAME, "result", "miss"));
+        assertEquals(1, meterValue("cache.size", "cache", FxRateHistoryService.CACHE_NAME));
+        assertEquals(31, meterValue("fx.history.cache.rates"));
+    }
+
+    @Test
+    void openRangeExpiresAfterTtlTest() {
+        LocalDate startDate = TODAY.minusDays(9);
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", startDate, TODAY);
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", null, null);
+
+        tickerNanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", startDate, TODAY);
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", null, null);
+        assertEquals(2, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        tickerNanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", startDate, TODAY);
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        // A finished update drops the ranges that reach today
+        fxRateHistoryService.evictOpenRanges();
+        fxRateHistoryService.getFxRatesForCurrency("LT", "USD", startDate, TODAY);
+        assertEquals(4, stubServer.getRequestCount("getFxRatesForCurrency"));
+    }
+
+    @Test
+    void cacheIsBoundedByCachedRatesTest() {
+        fxRateHistoryService = createFxRateHistoryService(100);
+
+        // 31 rates per month, so only three months fit
+        for (int month = 1; month <= 5; month++) {
+            LocalDate startDate = LocalDate.of(2023, month, 1);
+            fxRateHistoryService.getFxRatesForCurrency("LT", "USD", startDate, startDate.plusDays(30));
+        }
+        fxRateHistoryService.cleanUp();
+
+        double cachedRates = meterValue("fx.history.cache.rates");
+        assertTrue(cachedRates <= 100);
+        assertEquals(5 - meterValue("cache.size", "cache", FxRateHistoryService.CACHE_NAME),
+                meterValue("cache.evictions", "cache", FxRateHistoryService.CACHE_NAME));
+        assertEquals(155 - cachedRates, meterValue("cache.eviction.weight", "cache", FxRateHistoryService.CACHE_NAME));
+    }
+
+    @Test
+    void overlappingRangesFetchEachMonthOnceTest() {
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2023, 11, 20), LocalDate.of(2024, 1, 10));
+
+        assertEquals(52, fxRates.size());
+        assertEquals(LocalDate.of(2024, 1, 10), fxRates.get(0).getDate());
+        assertEquals(LocalDate.of(2023, 11, 20), fxRates.get(fxRates.size() - 1).getDate());
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        // Only February is new
+        fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2023, 12, 5), LocalDate.of(2024, 2, 2));
+
+        assertEquals(60, fxRates.size());
+        assertEquals(LocalDate.of(2024, 2, 2), fxRates.get(0).getDate());
+        assertEquals(LocalDate.of(2023, 12, 5), fxRates.get(fxRates.size() - 1).getDate());
+        assertEquals(4, stubServer.getRequestCount("getFxRatesForCurrency"));
+    }
+
+    @Test
+    void onlyOpenMonthIsFetchedAgainTest() {
+        fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2024, 2, 10), TODAY);
+        assertEquals(2, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        fxRateHistoryService.evictOpenRanges();
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2024, 2, 10), TODAY);
+
+        assertEquals(35, fxRates.size());
+        assertEquals(TODAY, fxRates.get(0).getDate());
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+    }
+
+    @Test
+    void closedRangesAreServedFromArchiveAfterRestartTest() {
+        String archivePath = tempDir.resolve("fx-rates.archive").toString();
+        rateArchive = new RateArchive(archivePath);
+        fxRateHistoryService = createFxRateHistoryService(10_000);
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2024, 1, 20), TODAY);
+        rateArchive.close();
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+
+        rateArchive = new RateArchive(archivePath);
+        fxRateHistoryService = createFxRateHistoryService(10_000);
+
+        // January and February come from the archive, the open month from the web service
+        assertEquals(fxRates, fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2024, 1, 20), TODAY));
+        assertEquals(4, stubServer.getRequestCount("getFxRatesForCurrency"));
+        rateArchive.close();
+    }
+
+    @Test
+    void monthFetchesAreBoundedTest() {
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+
+        assertEquals(365, fxRates.size());
+        assertEquals(12, stubServer.getRequestCount("getFxRatesForCurrency"));
+        assertEquals(2, stubServer.getMaxConcurrentRequests());
+    }
+
+    @Test
+    void shortAndAllCurrencyRangesAreFetchedExactlyTest() {
+        // A single day of all currencies (USD and GBP)
+        List<FxRateDTO> fxRates = fxRateHistoryService.getFxRatesBetween("LT", null, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 15));
+        assertEquals(2, fxRates.size());
+        assertEquals("tp=LT&ccy=&dtFrom=2024-01-15&dtTo=2024-01-15", stubServer.getLastQuery("getFxRatesForCurrency"));
+
+        // Less than a month across a month boundary
+        fxRates = fxRateHistoryService.getFxRatesBetween("LT", "USD", LocalDate.of(2024, 1, 25), LocalDate.of(2024, 2, 5));
+        assertEquals(12, fxRates.size());
+        assertEquals("tp=LT&ccy=USD&dtFrom=2024-01-25&dtTo=2024-02-05", stubServer.getLastQuery("getFxRatesForCurrency"));
+
+        // A year of all currencies is still one call
+        fxRates = fxRateHistoryService.getFxRatesBetween("LT", null, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        assertEquals(2 * 365, fxRates.size());
+        assertEquals(3, stubServer.getRequestCount("getFxRatesForCurrency"));
+    }
+
+    @Test
+    void failureIsSharedAndReleasedTest() {
+        stubServer.setErrorStatus(503);
+        CompletableFuture<List<FxRateDTO>> first = fxRateHistoryService.getFxRatesForCurrencyAsync("LT", "USD", START_DATE, END_DATE);
+        CompletableFuture<List<FxRateDTO>> second = fxRateHistoryService.getFxRatesForCurrencyAsync("LT", "USD", START_DATE, END_DATE);
+
+        assertThrows(HttpServerErrorException.class, () -> fxRateHistoryService.getFxRatesForCurrency("LT", "USD", START_DATE, END_DATE));
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+
+        stubServer.setErrorStatus(0);
+        assertEquals(31, fxRateHistoryService.getFxRatesForCurrency("LT", "USD", START_DATE, END_DATE).size());
+    }
+
+    private FxRateHistoryService createFxRateHistoryService(long maxCachedRates) {
+        Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        meterRegistry = new SimpleMeterRegistry();
+        return new FxRateHistoryService(webServiceClient, new XmlDataParser(webServiceClient, new SimpleMeterRegistry()), rateArchive, maxCachedRates,
+                Duration.ofMinutes(5), 2, meterRegistry, clock, tickerNanos::get, Runnable::run);
+    }
+
+    private double meterValue(String name, String... tags) {
+        return meterRegistry.get(name).tags(tags).meter().measure().iterator().next().getValue();
+    }
+}
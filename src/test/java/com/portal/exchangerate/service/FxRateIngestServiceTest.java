@@ -0,0 +1,218 @@
+package com.portal.exchangerate.service;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.model.Ccy;
+import com.portal.exchangerate.model.CcyAmt;
+import com.portal.exchangerate.model.FxRate;
+import com.portal.exchangerate.repository.CurrencyRepository;
+import com.portal.exchangerate.repository.FxRateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FxRateIngestServiceTest {
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private FxRateRepository fxRateRepository;
+
+    @InjectMocks
+    private FxRateIngestService fxRateIngestService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(fxRateRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void saveCurrencyListUpdatesExistingAndCreatesNewCurrenciesTest() {
+        Ccy existingCurrency = createCurrency("USD");
+        existingCurrency.setId(1L);
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection())).thenReturn(List.of(existingCurrency));
+
+        Map<String, Ccy> currencies = fxRateIngestService.saveCurrencyList(List.of(
+                new CcyDTO("USD", "JAV doleris", 840, "2"),
+                new CcyDTO("GBP", "Svaras sterlingų", 826, "2")));
+
+        verify(currencyRepository, times(1)).findByCurrencyCodeIn(anyCollection());
+        verify(currencyRepository, never()).findByCurrencyCode(anyString());
+        assertSame(existingCurrency, currencies.get("USD"));
+        assertEquals("JAV doleris", existingCurrency.getCurrencyName());
+        assertNull(currencies.get("GBP").getId());
+        assertEquals(826, currencies.get("GBP").getCurrencyNumber());
+
+        ArgumentCaptor<List<Ccy>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(currencyRepository).saveAll(savedCaptor.capture());
+        assertEquals(2, savedCaptor.getValue().size());
+    }
+
+    @Test
+    void saveExchangeRatesResolvesCurrenciesWithOneQueryTest() {
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection()))
+                .thenReturn(List.of(createCurrency("EUR"), createCurrency("USD"), createCurrency("GBP")));
+
+        List<FxRate> savedFxRates = fxRateIngestService.saveExchangeRates(List.of(
+                createFxRateDTO("USD", "1.0875"),
+                createFxRateDTO("GBP", "0.8563")));
+
+        verify(currencyRepository, times(1)).findByCurrencyCodeIn(anyCollection());
+        verify(currencyRepository, never()).findByCurrencyCode(anyString());
+        verify(fxRateRepository, times(1)).saveAll(anyList());
+
+        assertEquals(2, savedFxRates.size());
+        FxRate usdFxRate = savedFxRates.get(0);
+        assertEquals("EUR", usdFxRate.getBaseCurrency().getCurrencyCode());
+        assertEquals(new BigDecimal("1.0875"), usdFxRate.getFxRate());
+        assertEquals(2, usdFxRate.getCurrencyAmounts().size());
+        assertSame(usdFxRate, usdFxRate.getCurrencyAmounts().get(1).getFxRate());
+        assertEquals("USD", usdFxRate.getCurrencyAmounts().get(1).getTargetCurrency().getCurrencyCode());
+        assertEquals("GBP", savedFxRates.get(1).getCurrencyAmounts().get(1).getTargetCurrency().getCurrencyCode());
+    }
+
+    @Test
+    void saveExchangeRatesSkipsUnknownCurrenciesTest() {
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection()))
+                .thenReturn(List.of(createCurrency("EUR"), createCurrency("USD")));
+
+        FxRateDTO unknownBaseCurrency = createFxRateDTO("USD", "1.0875");
+        unknownBaseCurrency.setBaseCurrency("N/A");
+
+        List<FxRate> savedFxRates = fxRateIngestService.saveExchangeRates(List.of(
+                createFxRateDTO("USD", "1.0875"),
+                createFxRateDTO("XXX", "1.5"),
+                unknownBaseCurrency));
+
+        // XXX is not in the currency list, so the rate has no quote currency and no natural key
+        assertEquals(1, savedFxRates.size());
+        assertEquals(2, savedFxRates.get(0).getCurrencyAmounts().size());
+        assertEquals("USD", savedFxRates.get(0).getQuoteCurrency().getCurrencyCode());
+    }
+
+    @Test
+    void saveCurrencyListAndExchangeRatesReusesSavedCurrenciesTest() {
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection())).thenReturn(new ArrayList<>());
+
+        fxRateIngestService.saveCurrencyListAndExchangeRates(
+                List.of(new CcyDTO("EUR", "Euras", 978, "2"), new CcyDTO("USD", "JAV doleris", 840, "2")),
+                List.of(createFxRateDTO("USD", "1.0875")));
+
+        verify(currencyRepository, times(1)).findByCurrencyCodeIn(anyCollection());
+
+        ArgumentCaptor<List<FxRate>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(fxRateRepository).saveAll(savedCaptor.capture());
+        assertEquals(1, savedCaptor.getValue().size());
+        assertEquals("USD", savedCaptor.getValue().get(0).getCurrencyAmounts().get(1).getTargetCurrency().getCurrencyCode());
+    }
+
+    @Test
+    void saveExchangeRatesUpsertsOnNaturalKeyTest() {
+        Ccy eur = createCurrency("EUR");
+        Ccy usd = createCurrency("USD");
+        Ccy gbp = createCurrency("GBP");
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection())).thenReturn(List.of(eur, usd, gbp));
+        FxRate storedUsd = createStoredFxRate(1L, eur, usd, "1.0875000000");
+        FxRate storedGbp = createStoredFxRate(2L, eur, gbp, "0.8563000000");
+        when(fxRateRepository.findStoredRates(eq("LT"), eq(LocalDate.of(2024, 3, 1)), eq(LocalDate.of(2024, 3, 1)), anyCollection()))
+                .thenReturn(List.of(storedUsd, storedGbp));
+
+        List<FxRate> savedFxRates = fxRateIngestService.saveExchangeRates(List.of(
+                createFxRateDTO("USD", "1.0875"),
+                createFxRateDTO("GBP", "0.8571"),
+                createFxRateDTO("JPY", "161.5")));
+
+        // USD is unchanged, GBP is updated in place and JPY, unknown and so without a quote currency, is skipped
+        ArgumentCaptor<List<FxRate>> insertedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(fxRateRepository).saveAll(insertedCaptor.capture());
+        assertTrue(insertedCaptor.getValue().isEmpty());
+        assertEquals(1, savedFxRates.size());
+        assertSame(storedGbp, savedFxRates.get(0));
+        assertEquals(new BigDecimal("0.8571"), storedGbp.getFxRate());
+        assertEquals(new BigDecimal("0.8571"), storedGbp.getCurrencyAmounts().get(1).getAmount());
+        assertEquals(new BigDecimal("1.0875000000"), storedUsd.getFxRate());
+    }
+
+    @Test
+    void saveMissingExchangeRatesCountsInsertedRatesTest() {
+        Ccy eur = createCurrency("EUR");
+        Ccy usd = createCurrency("USD");
+        when(currencyRepository.findByCurrencyCodeIn(anyCollection())).thenReturn(List.of(eur, usd, createCurrency("GBP")));
+        when(fxRateRepository.findStoredRates(anyString(), any(), any(), anyCollection()))
+                .thenReturn(List.of(createStoredFxRate(1L, eur, usd, "1.0875000000")));
+
+        int insertedRates = fxRateIngestService.saveMissingExchangeRates(List.of(
+                createFxRateDTO("USD", "1.0875"),
+                createFxRateDTO("GBP", "0.8563"),
+                createFxRateDTO("GBP", "0.8563")));
+
+        // The stored USD rate and the duplicate GBP rate are not inserted
+        assertEquals(1, insertedRates);
+        verify(fxRateRepository, times(1)).findStoredRates(eq("LT"), any(), any(), eq(Set.of("USD", "GBP")));
+    }
+
+    private FxRate createStoredFxRate(Long id, Ccy baseCurrency, Ccy quoteCurrency, String amount) {
+        FxRate fxRate = new FxRate();
+        fxRate.setId(id);
+        fxRate.setFxRateType("LT");
+        fxRate.setFxRateDate(LocalDate.of(2024, 3, 1));
+        fxRate.setBaseCurrency(baseCurrency);
+        fxRate.setQuoteCurrency(quoteCurrency);
+        fxRate.setFxRate(new BigDecimal(amount));
+
+        CcyAmt baseAmount = new CcyAmt();
+        baseAmount.setTargetCurrency(baseCurrency);
+        baseAmount.setAmount(new BigDecimal("1.0000000000"));
+        CcyAmt quoteAmount = new CcyAmt();
+        quoteAmount.setTargetCurrency(quoteCurrency);
+        quoteAmount.setAmount(new BigDecimal(amount));
+        fxRate.setCurrencyAmounts(new ArrayList<>(List.of(baseAmount, quoteAmount)));
+        return fxRate;
+    }
+
+    private Ccy createCurrency(String currencyCode) {
+        Ccy currency = new Ccy();
+        currency.setCurrencyCode(currencyCode);
+        return currency;
+    }
+
+    private FxRateDTO createFxRateDTO(String currencyCode, String amount) {
+        CcyAmtDTO baseAmount = new CcyAmtDTO();
+        baseAmount.setTargetCurrency("EUR");
+        baseAmount.setAmount(BigDecimal.ONE);
+
+        CcyAmtDTO targetAmount = new CcyAmtDTO();
+        targetAmount.setTargetCurrency(currencyCode);
+        targetAmount.setAmount(new BigDecimal(amount));
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType("LT");
+        fxRateDTO.setDate(LocalDate.of(2024, 3, 1));
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal(amount));
+        fxRateDTO.setCurrencyAmounts(new ArrayList<>(List.of(baseAmount, targetAmount)));
+        return fxRateDTO;
+    }
+}
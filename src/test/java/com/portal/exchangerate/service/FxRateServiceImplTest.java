@@ -1,7 +1,11 @@
 package com.portal.exchangerate.service;
 
 import com.portal.exchangerate.api.WebServiceClient;
+import com.portal.exchangerate.dto.CcyAmtDTO;
 import com.portal.exchangerate.dto.CcyDTO;
+import com.portal.exchangerate.dto.ConversionDTO;
+import com.portal.exchangerate.dto.ConversionRequestDTO;
+import com.portal.exchangerate.dto.ConversionResultDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
 import com.portal.exchangerate.enums.ExchangeRateType;
 import com.portal.exchangerate.model.Ccy;
@@ -9,11 +13,13 @@ import com.portal.exchangerate.model.CcyAmt;
 import com.portal.exchangerate.model.FxRate;
 import com.portal.exchangerate.repository.CurrencyRepository;
 import com.portal.exchangerate.repository.FxRateRepository;
+import com.portal.exchangerate.snapshot.RateSnapshotHolder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -37,6 +43,12 @@ class FxRateServiceImplTest {
     @Mock
     private FxRateRepository fxRateRepository;
 
+    @Spy
+    private RateSnapshotHolder rateSnapshotHolder = new RateSnapshotHolder();
+
+    @Mock
+    private FxRateHistoryService fxRateHistoryService;
+
     @InjectMocks
     private FxRateServiceImpl fxRateService;
 
@@ -45,35 +57,6 @@ class FxRateServiceImplTest {
         MockitoAnnotations.initMocks(this);
     }
 
-    private List<FxRate> createMockFxRates() {
-        List<FxRate> fxRates = new ArrayList<>();
-        FxRate fxRate1 = new FxRate();
-        fxRate1.setFxRateDate(LocalDate.now());
-        fxRate1.setFxRateType("Type");
-
-        fxRate1.setCurrencyAmounts(new ArrayList<>());
-
-        List<Ccy> currencies = createMockCurrencies();
-
-        CcyAmt ccyAmt1 = new CcyAmt();
-        ccyAmt1.setTargetCurrency(currencies.get(0)); // USD
-        ccyAmt1.setAmount(BigDecimal.ONE);
-        fxRate1.getCurrencyAmounts().add(ccyAmt1);
-
-        CcyAmt ccyAmt2 = new CcyAmt();
-        ccyAmt2.setTargetCurrency(currencies.get(1)); // EUR
-        ccyAmt2.setAmount(BigDecimal.ONE);
-        fxRate1.getCurrencyAmounts().add(ccyAmt2);
-
-        CcyAmt ccyAmt3 = new CcyAmt();
-        ccyAmt3.setTargetCurrency(currencies.get(2)); // GBP
-        ccyAmt3.setAmount(BigDecimal.ONE);
-        fxRate1.getCurrencyAmounts().add(ccyAmt3);
-
-        fxRates.add(fxRate1);
-        return fxRates;
-    }
-
     private List<Ccy> createMockCurrencies() {
         List<Ccy> currencies = new ArrayList<>();
         currencies.add(new Ccy());
@@ -106,8 +89,7 @@ class FxRateServiceImplTest {
                 new CcyDTO("GBP", "Didžiosios Britanijos svaras sterlingų", 826, "2")
         );
 
-        when(fxRateRepository.findAll()).thenReturn(createMockFxRates());
-        when(currencyRepository.findAll()).thenReturn(createMockCurrencies());
+        when(currencyRepository.findAvailableCurrencies()).thenReturn(expectedCurrencies);
 
         List<CcyDTO> result = fxRateService.getAvailableCurrencies();
 
@@ -124,6 +106,7 @@ class FxRateServiceImplTest {
                     );
             assertTrue(containsExpectedCurrency);
         }
+        verify(fxRateRepository, never()).findAll();
     }
 
     @Test
@@ -158,11 +141,9 @@ class FxRateServiceImplTest {
 
         ExchangeRateType exchangeRateType = ExchangeRateType.LT;
         String currency = "EUR";
-        String fxRatesData = "<FxRates xmlns=\"http://www.lb.lt/WebServices/FxRates\">...</FxRates>";
         List<FxRateDTO> fxRateDTOList = Collections.singletonList(new FxRateDTO());
 
-        when(webServiceClient.getFxRatesForCurrency(anyString(), eq(currency), any(), any())).thenReturn(fxRatesData);
-        when(xmlDataParser.parseExchangeRates(fxRatesData)).thenReturn(fxRateDTOList);
+        when(fxRateHistoryService.getFxRatesForCurrency(anyString(), eq(currency), any(), any())).thenReturn(fxRateDTOList);
 
         List<FxRateDTO> result = fxRateService.getCurrentFxRates(exchangeRateType, null, currency);
 
@@ -171,6 +152,141 @@ class FxRateServiceImplTest {
         assertEquals(fxRateDTOList.size(), result.size());
     }
 
+    @Test
+    void getCurrentFxRatesFromStoredRatesTest() {
+
+        List<Ccy> currencies = createMockCurrencies();
+        FxRate fxRate = new FxRate();
+        fxRate.setFxRateDate(LocalDate.now());
+        fxRate.setFxRateType("LT");
+        fxRate.setFxRate(BigDecimal.valueOf(1.18));
+        fxRate.setBaseCurrency(currencies.get(1)); // EUR
+
+        CcyAmt ccyAmt = new CcyAmt();
+        ccyAmt.setTargetCurrency(currencies.get(0)); // USD
+        ccyAmt.setAmount(BigDecimal.valueOf(1.18));
+        fxRate.setCurrencyAmounts(new ArrayList<>(List.of(ccyAmt)));
+
+        when(fxRateRepository.findLatestRateDate("LT")).thenReturn(Optional.of(fxRate.getFxRateDate()));
+        when(fxRateRepository.findWithCurrencyAmountsByFxRateDateAndFxRateType(fxRate.getFxRateDate(), "LT"))
+                .thenReturn(List.of(fxRate));
+
+        List<FxRateDTO> result = fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, null);
+
+        assertEquals(1, result.size());
+        assertEquals("EUR", result.get(0).getBaseCurrency());
+        assertEquals(BigDecimal.valueOf(1.18), result.get(0).getRate());
+        assertEquals("USD", result.get(0).getCurrencyAmounts().get(0).getTargetCurrency());
+        verifyNoInteractions(webServiceClient, fxRateHistoryService);
+    }
+
+    @Test
+    void getRatesFromSnapshotTest() {
+
+        rateSnapshotHolder.publish(List.of(
+                createFxRateDTO("USD", BigDecimal.valueOf(1.08)),
+                createFxRateDTO("GBP", BigDecimal.valueOf(0.86))));
+
+        assertEquals(BigDecimal.valueOf(1.08), fxRateService.getRateForCurrency("USD"));
+        assertEquals(BigDecimal.valueOf(0.86), fxRateService.calculateCrossRate("EUR", "GBP"));
+        assertEquals(new BigDecimal("0.7962962963"), fxRateService.calculateCrossRate("USD", "GBP"));
+
+        Map<String, BigDecimal> crossRates = fxRateService.getCrossRates("USD");
+        assertEquals(List.of("EUR", "GBP", "USD"), List.copyOf(crossRates.keySet()));
+        assertEquals(new BigDecimal("0.9259259259"), crossRates.get("EUR"));
+        assertEquals(BigDecimal.ONE, crossRates.get("USD"));
+
+        List<FxRateDTO> currentFxRates = fxRateService.getCurrentFxRates(ExchangeRateType.LT, null, "USD");
+        assertEquals(1, currentFxRates.size());
+        assertEquals(BigDecimal.valueOf(1.08), currentFxRates.get(0).getRate());
+
+        verifyNoInteractions(webServiceClient, fxRateHistoryService, fxRateRepository);
+    }
+
+    @Test
+    void convertTest() {
+
+        rateSnapshotHolder.publish(List.of(
+                createFxRateDTO("USD", new BigDecimal("1.0830")),
+                createFxRateDTO("JPY", new BigDecimal("162.25")),
+                createFxRateDTO("KWD", new BigDecimal("0.33255"))));
+
+        List<Ccy> currencies = createMockCurrencies();
+        currencies.add(new Ccy());
+        currencies.get(3).setCurrencyCode("JPY");
+        currencies.get(3).setMinorUnits("0");
+        currencies.add(new Ccy());
+        currencies.get(4).setCurrencyCode("KWD");
+        currencies.get(4).setMinorUnits("3");
+        when(currencyRepository.findAll()).thenReturn(currencies);
+
+        // One source, many targets
+        ConversionResultDTO result = fxRateService.convert(
+                new ConversionRequestDTO("EUR", List.of("USD", "JPY", "KWD", "XXX"), new BigDecimal("100.55"), null));
+
+        assertEquals("LT", result.getType());
+        assertEquals(LocalDate.now(), result.getDate());
+        assertEquals(rateSnapshotHolder.get().getVersion(), result.getSnapshotVersion());
+        assertEquals(List.of(
+                new ConversionDTO("EUR", "USD", new BigDecimal("100.55"), new BigDecimal("1.083"), new BigDecimal("108.90")),
+                new ConversionDTO("EUR", "JPY", new BigDecimal("100.55"), new BigDecimal("162.25"), new BigDecimal("16314")),
+                new ConversionDTO("EUR", "KWD", new BigDecimal("100.55"), new BigDecimal("0.33255"), new BigDecimal("33.438")),
+                new ConversionDTO("EUR", "XXX", new BigDecimal("100.55"), null, null)), result.getConversions());
+
+        // Tuples, falling back to the request amount
+        result = fxRateService.convert(new ConversionRequestDTO(null, null, BigDecimal.ONE, List.of(
+                new ConversionDTO("USD", "JPY", new BigDecimal("2500"), null, null),
+                new ConversionDTO("JPY", "USD", null, null, null))));
+
+        assertEquals(new BigDecimal("374538"), result.getConversions().get(0).getConvertedAmount());
+        assertEquals(new BigDecimal("149.8153277932"), result.getConversions().get(0).getRate());
+        assertEquals(new BigDecimal("0.01"), result.getConversions().get(1).getConvertedAmount());
+
+        // The minor units are read once
+        verify(currencyRepository, times(1)).findAll();
+        verifyNoInteractions(webServiceClient, fxRateHistoryService, fxRateRepository);
+
+        assertThrows(IllegalArgumentException.class, () -> fxRateService.convert(new ConversionRequestDTO()));
+        assertThrows(IllegalArgumentException.class,
+                () -> fxRateService.convert(new ConversionRequestDTO("EUR", List.of("USD"), null, null)));
+
+        // Amounts are bounded, so no conversion falls back to an arbitrarily large BigDecimal product
+        assertEquals(new BigDecimal("108300000000000000000.00"), fxRateService.convert(new ConversionRequestDTO("EUR", List.of("USD"),
+                new BigDecimal("99999999999999999999.999999999999999999"), null)).getConversions().get(0).getConvertedAmount());
+        for (String amount : List.of("1E+10000000", "1E-10000000", "100000000000000000000", "0.0000000000000000001", "1E+19")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> fxRateService.convert(new ConversionRequestDTO("EUR", List.of("USD"), new BigDecimal(amount), null)), amount);
+        }
+    }
+
+    @Test
+    void getRateForCurrencyFromStoredRatesTest() {
+
+        when(fxRateRepository.findLatestRate("LT", "USD")).thenReturn(Optional.of(new BigDecimal("1.0856")));
+
+        // Without a snapshot the latest stored rate is used before asking the web service
+        assertEquals(new BigDecimal("1.0856"), fxRateService.getRateForCurrency("USD"));
+        verifyNoInteractions(webServiceClient, fxRateHistoryService);
+    }
+
+    private FxRateDTO createFxRateDTO(String currency, BigDecimal amount) {
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+
+        CcyAmtDTO target = new CcyAmtDTO();
+        target.setTargetCurrency(currency);
+        target.setAmount(amount);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType("LT");
+        fxRateDTO.setDate(LocalDate.now());
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(amount);
+        fxRateDTO.setCurrencyAmounts(List.of(eur, target));
+        return fxRateDTO;
+    }
+
     @Test
     void getFxRatesTest() {
 
@@ -178,11 +294,9 @@ class FxRateServiceImplTest {
         String currency = "EUR";
         String startDate = "2024-01-01";
         String endDate = "2024-01-31";
-        String fxRatesData = "<FxRates xmlns=\"http://www.lb.lt/WebServices/FxRates\">...</FxRates>";
         List<FxRateDTO> fxRateDTOList = Collections.singletonList(new FxRateDTO());
 
-        when(webServiceClient.getFxRatesForCurrency(anyString(), eq(currency), any(), any())).thenReturn(fxRatesData);
-        when(xmlDataParser.parseExchangeRates(fxRatesData)).thenReturn(fxRateDTOList);
+        when(fxRateHistoryService.getFxRatesBetween(anyString(), eq(currency), any(), any())).thenReturn(fxRateDTOList);
 
         List<FxRateDTO> result = fxRateService.getFxRates(exchangeRateType, null, currency, startDate, endDate);
 
@@ -0,0 +1,137 @@
+package com.portal.exchangerate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.portal.exchangerate.dto.RateChangeDTO;
+import com.portal.exchangerate.event.FxRatesUpdatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateUpdateBroadcasterTest {
+
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FxRateUpdateBroadcaster fxRateUpdateBroadcaster;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        fxRateUpdateBroadcaster = new FxRateUpdateBroadcaster(objectMapper, meterRegistry,
+                QUEUE_CAPACITY, 2, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fxRateUpdateBroadcaster.close();
+    }
+
+    @Test
+    void pushesRateChangesTest() throws Exception {
+
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        fxRateUpdateBroadcaster.subscribe(emitter);
+
+        // Nothing changed, nothing to push
+        fxRateUpdateBroadcaster.onFxRatesUpdated(new FxRatesUpdatedEvent("scheduler", List.of()));
+        fxRateUpdateBroadcaster.onFxRatesUpdated(createEvent("1.0830"));
+
+        assertEquals("event:rates\ndata:[{\"type\":\"LT\",\"currency\":\"USD\",\"date\":\"2024-03-01\",\"rate\":1.0830}]\n\n",
+                emitter.take());
+        assertNull(emitter.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("fx.push.subscribers").gauge().value());
+    }
+
+    @Test
+    void slowSubscriberTest() throws Exception {
+
+        CountDownLatch released = new CountDownLatch(1);
+        RecordingEmitter slowEmitter = new RecordingEmitter(released);
+        RecordingEmitter fastEmitter = new RecordingEmitter(new CountDownLatch(0));
+        fxRateUpdateBroadcaster.subscribe(slowEmitter);
+        fxRateUpdateBroadcaster.subscribe(fastEmitter);
+
+        // The first event is being sent when the others arrive
+        fxRateUpdateBroadcaster.onFxRatesUpdated(createEvent("1.080"));
+        assertTrue(slowEmitter.sending.await(5, TimeUnit.SECONDS));
+        assertTrue(fastEmitter.take().contains("1.080"));
+
+        // Publishing does not wait for the blocked subscriber, the other one keeps receiving
+        int events = QUEUE_CAPACITY + 3;
+        long startNanos = System.nanoTime();
+        for (int i = 1; i < events; i++) {
+            fxRateUpdateBroadcaster.onFxRatesUpdated(createEvent("1.08" + i));
+            assertTrue(fastEmitter.take().contains("1.08" + i));
+        }
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(5));
+
+        // Then it gets a resync instead of its overflowing queue, and the events after it
+        released.countDown();
+        assertTrue(slowEmitter.take().contains("1.080"));
+        assertEquals("event:resync\ndata:{}\n\n", slowEmitter.take());
+        assertTrue(slowEmitter.take().contains("1.086"));
+        assertNull(slowEmitter.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1.0, meterRegistry.get("fx.push.overflows").counter().count());
+    }
+
+    @Test
+    void maxSubscribersTest() {
+
+        fxRateUpdateBroadcaster.subscribe(new SseEmitter());
+        SseEmitter emitter = new SseEmitter();
+        fxRateUpdateBroadcaster.subscribe(emitter);
+
+        assertThrows(IllegalStateException.class, () -> fxRateUpdateBroadcaster.subscribe(new SseEmitter()));
+        assertEquals(2, fxRateUpdateBroadcaster.getSubscriberCount());
+    }
+
+    private static FxRatesUpdatedEvent createEvent(String rate) {
+        return new FxRatesUpdatedEvent("scheduler", List.of(new RateChangeDTO("LT", "USD", LocalDate.of(2024, 3, 1), new BigDecimal(rate))));
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch released;
+
+        private RecordingEmitter(CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            sending.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        private String take() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No event sent");
+            return event;
+        }
+    }
+}
@@ -3,14 +3,21 @@ package com.portal.exchangerate.service;
 import com.portal.exchangerate.api.WebServiceClient;
 import com.portal.exchangerate.dto.CcyDTO;
 import com.portal.exchangerate.dto.FxRateDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class XmlDataParserTest {
 
@@ -22,7 +29,7 @@ class XmlDataParserTest {
                 + "</CcyTbl>";
 
         WebServiceClient webServiceClient = new WebServiceClient();
-        XmlDataParser xmlDataParser = new XmlDataParser(webServiceClient);
+        XmlDataParser xmlDataParser = new XmlDataParser(webServiceClient, new SimpleMeterRegistry());
 
         List<CcyDTO> result = xmlDataParser.parseCurrencyList(xmlData);
 
@@ -55,7 +62,7 @@ class XmlDataParserTest {
                 "</FxRates>";
 
         WebServiceClient webServiceClient = new WebServiceClient();
-        XmlDataParser xmlDataParser = new XmlDataParser(webServiceClient);
+        XmlDataParser xmlDataParser = new XmlDataParser(webServiceClient, new SimpleMeterRegistry());
 
         List<FxRateDTO> result = xmlDataParser.parseExchangeRates(xmlData);
 
@@ -69,4 +76,66 @@ class XmlDataParserTest {
         assertEquals(BigDecimal.valueOf(1), fxRate.getCurrencyAmounts().get(0).getAmount());
         assertEquals(BigDecimal.valueOf(3.97004).stripTrailingZeros(), fxRate.getCurrencyAmounts().get(1).getAmount().stripTrailingZeros());
     }
-}
\ No newline at end of file
+
+    @Test
+    void parseExchangeRatesFromStreamTest() {
+
+        String xmlData = "<FxRates xmlns=\"http://www.lb.lt/WebServices/FxRates\">" +
+                "<FxRate><Tp>EU</Tp><Dt>2024-03-01</Dt>" +
+                "<CcyAmt><Ccy>EUR</Ccy><Amt>1</Amt></CcyAmt><CcyAmt><Ccy>USD</Ccy><Amt>1.0829</Amt></CcyAmt></FxRate>" +
+                "<FxRate><Tp>EU</Tp><Dt>2024-02-29</Dt>" +
+                "<CcyAmt><Ccy>EUR</Ccy><Amt>1</Amt></CcyAmt><CcyAmt><Ccy>USD</Ccy><Amt>1.0813</Amt></CcyAmt></FxRate>" +
+                "</FxRates>";
+
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+
+        List<FxRateDTO> streamed = new ArrayList<>();
+        xmlDataParser.parseExchangeRatesStream(new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8)), streamed::add);
+        List<FxRateDTO> parsed = xmlDataParser.parseExchangeRatesStream(new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, streamed.size());
+        assertEquals(streamed, parsed);
+        assertEquals(LocalDate.parse("2024-02-29"), streamed.get(1).getDate());
+        assertEquals("EU", streamed.get(1).getType());
+        assertEquals("EUR", streamed.get(1).getBaseCurrency());
+        assertEquals(new BigDecimal("1.0813"), streamed.get(1).getRate());
+    }
+
+    @Test
+    void parseFixturesTest() throws IOException {
+
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+
+        List<FxRateDTO> currentFxRates = xmlDataParser.parseExchangeRates(readFixture("getCurrentFxRates-LT.xml"));
+        assertEquals(40, currentFxRates.size());
+        assertEquals(new BigDecimal("1.0830"), currentFxRates.stream()
+                .filter(fxRate -> fxRate.getCurrencyAmounts().get(1).getTargetCurrency().equals("USD"))
+                .findFirst().orElseThrow().getRate());
+
+        List<FxRateDTO> history = xmlDataParser.parseExchangeRates(readFixture("getFxRatesForCurrency-LT-USD.xml"));
+        assertEquals(22, history.size());
+        assertEquals(LocalDate.parse("2024-03-01"), history.get(0).getDate());
+
+        List<CcyDTO> currencies = xmlDataParser.parseCurrencyList(readFixture("getCurrencyList.xml"));
+        assertEquals(41, currencies.size());
+        assertEquals("JAV doleris", currencies.stream()
+                .filter(currency -> currency.getCurrencyCode().equals("USD"))
+                .findFirst().orElseThrow().getCurrencyName());
+    }
+
+    @Test
+    void parseMalformedXmlTest() {
+
+        XmlDataParser xmlDataParser = new XmlDataParser(new WebServiceClient(), new SimpleMeterRegistry());
+
+        assertNull(xmlDataParser.parseExchangeRates("<FxRates xmlns=\"http://www.lb.lt/WebServices/FxRates\"><FxRate>"));
+        assertNull(xmlDataParser.parseCurrencyList("not xml"));
+    }
+
+    private String readFixture(String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/fixtures/lb-lt/" + name)) {
+            assertNotNull(inputStream);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.portal.exchangerate.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Equivalence of {@link FixedPoint} with the {@link BigDecimal} arithmetic it replaces, on seeded random operands
+ * spread over every order of magnitude and on the edge cases: ties, overflow and the {@code BigDecimal} fallbacks.
+ */
+class FixedPointTest {
+
+    private static final int SAMPLES = 200_000;
+
+    private final Random random = new Random(20240301);
+
+    @Test
+    void divideMatchesBigDecimalTest() {
+
+        for (int i = 0; i < SAMPLES; i++) {
+            assertDivide(randomRate(), randomRate());
+        }
+    }
+
+    @Test
+    void divideEdgeCasesTest() {
+
+        long one = 10_000_000_000L;
+        long[] operands = {0, 1, 2, 3, 7, one - 1, one, one + 1, 3 * one, 10 * one, 1_000_000_000_000_000L,
+                9_999_999_999_999_999L, 10_000_000_000_000_000L, 99_999_999_999_999_999L,
+                Long.MAX_VALUE / 10, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long dividend : operands) {
+            for (long divisor : operands) {
+                if (divisor != 0) {
+                    assertDivide(dividend, divisor);
+                }
+            }
+        }
+
+        // Exact ties round up: 1 / 16 = 0.0625 at four decimals, 0.00000000005 at ten
+        assertDivide(1, 2 * one);
+        assertEquals(1, FixedPoint.divide(1, 2 * one));
+        assertEquals(0, FixedPoint.divide(1, 2 * one + 1));
+
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(one, 0));
+    }
+
+    @Test
+    void multiplyMatchesBigDecimalTest() {
+
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = BigDecimal.valueOf(randomLong(random.nextInt(15) + 1) * (random.nextInt(10) == 0 ? -1 : 1),
+                    random.nextInt(8) - 1);
+            assertMultiply(amount, randomRate(), random.nextInt(5));
+        }
+    }
+
+    @Test
+    void multiplyEdgeCasesTest() {
+
+        // Ties away from zero, like RoundingMode.HALF_UP
+        assertEquals(new BigDecimal("0.13"), FixedPoint.multiply(new BigDecimal("0.25"), 5_000_000_000L, 2));
+        assertEquals(new BigDecimal("-0.13"), FixedPoint.multiply(new BigDecimal("-0.25"), 5_000_000_000L, 2));
+        assertEquals(new BigDecimal("0.12"), FixedPoint.multiply(new BigDecimal("0.25"), 4_999_999_999L, 2));
+
+        BigDecimal[] amounts = {BigDecimal.ZERO, BigDecimal.ONE, new BigDecimal("0.0000000001"), new BigDecimal("1E+5"),
+                new BigDecimal("999999999999999999"), new BigDecimal("9999999999999999999"), new BigDecimal("-123.456"),
+                new BigDecimal("12345678901234567890.123456789")};
+        long[] rates = {0, 1, 10_000_000_000L, 1_622_500_000_000L, Long.MAX_VALUE};
+        for (BigDecimal amount : amounts) {
+            for (long rate : rates) {
+                for (int scale = 0; scale <= 12; scale++) {
+                    assertMultiply(amount, rate, scale);
+                }
+            }
+        }
+    }
+
+    @Test
+    void divideUnsignedTest() {
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long divisor = random.nextLong();
+            if (divisor == 0) {
+                continue;
+            }
+            long high = Long.remainderUnsigned(random.nextLong(), divisor);
+            long low = random.nextLong();
+
+            BigInteger dividend = unsigned(high).shiftLeft(64).or(unsigned(low));
+            assertEquals(dividend.divide(unsigned(divisor)).longValue(), FixedPoint.divideUnsigned(high, low, divisor),
+                    () -> high + ":" + low + " / " + divisor);
+        }
+    }
+
+    private static void assertDivide(long dividend, long divisor) {
+        Long expected;
+        try {
+            expected = RateSnapshot.toUnscaled(BigDecimal.valueOf(dividend, RateSnapshot.SCALE)
+                    .divide(BigDecimal.valueOf(divisor, RateSnapshot.SCALE), MathContext.DECIMAL128)
+                    .setScale(RateSnapshot.SCALE, RoundingMode.HALF_UP));
+        } catch (ArithmeticException e) {
+            expected = null;
+        }
+
+        if (expected == null) {
+            assertThrows(ArithmeticException.class, () -> FixedPoint.divide(dividend, divisor), () -> dividend + " / " + divisor);
+        } else {
+            assertEquals(expected, FixedPoint.divide(dividend, divisor), () -> dividend + " / " + divisor);
+        }
+    }
+
+    private static void assertMultiply(BigDecimal amount, long rate, int scale) {
+        BigDecimal expected = amount.multiply(BigDecimal.valueOf(rate, RateSnapshot.SCALE)).setScale(scale, RoundingMode.HALF_UP);
+        BigDecimal actual = FixedPoint.multiply(amount, rate, scale);
+        assertEquals(expected, actual, () -> amount + " * " + rate + " at scale " + scale);
+    }
+
+    // Scaled rates from 10^-10 to 10^9, uniform in the number of digits
+    private long randomRate() {
+        return randomLong(random.nextInt(19) + 1);
+    }
+
+    private long randomLong(int digits) {
+        long bound = 1;
+        for (int i = 0; i < digits; i++) {
+            bound *= 10;
+        }
+        return 1 + Math.floorMod(random.nextLong(), bound - 1);
+    }
+
+    private static BigInteger unsigned(long value) {
+        return new BigInteger(Long.toUnsignedString(value));
+    }
+}
@@ -0,0 +1,151 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateArchiveTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-03-04");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendAndReopenTest() {
+
+        Path path = tempDir.resolve("fx-rates.archive");
+        RateArchive rateArchive = new RateArchive(path.toString());
+        assertTrue(rateArchive.isEnabled());
+        assertTrue(rateArchive.getLatestFxRates().isEmpty());
+
+        assertEquals(3, rateArchive.append(List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE, "JPY", "161.23"),
+                createFxRateDTO("EU", DATE.minusDays(1), "USD", "1.0850"))));
+        // Unchanged rates are not written again
+        assertEquals(1, rateArchive.append(List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE, "JPY", "161.30"))));
+        rateArchive.close();
+
+        rateArchive = new RateArchive(path.toString());
+        assertEquals(4, rateArchive.getRecordCount());
+
+        List<FxRateDTO> latest = rateArchive.getLatestFxRates();
+        assertEquals(3, latest.size());
+        assertEquals("JPY", latest.get(0).getCurrencyAmounts().get(1).getTargetCurrency());
+        assertEquals(new BigDecimal("161.3"), latest.get(0).getRate());
+        assertEquals(new BigDecimal("1.0856"), latest.get(1).getRate());
+        assertEquals("EU", latest.get(2).getType());
+        assertEquals(DATE.minusDays(1), latest.get(2).getDate());
+        rateArchive.close();
+    }
+
+    @Test
+    void rangeCoverageTest() {
+
+        RateArchive rateArchive = new RateArchive(tempDir.resolve("fx-rates.archive").toString());
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-29");
+
+        // Rates of a single day do not make a range available
+        rateArchive.append(List.of(createFxRateDTO("LT", startDate, "USD", "1.08")));
+        assertTrue(rateArchive.getSeries("LT", "USD", startDate, startDate).isEmpty());
+
+        List<FxRateDTO> fxRates = new ArrayList<>();
+        for (LocalDate date = endDate; !date.isBefore(startDate); date = date.minusDays(1)) {
+            fxRates.add(createFxRateDTO("LT", date, "USD", "1.0" + date.getDayOfMonth() + "1"));
+        }
+        rateArchive.appendRange("LT", "USD", startDate, endDate, RateSeries.of(fxRates).orElseThrow());
+
+        RateSeries series = rateArchive.getSeries("LT", "USD", startDate.plusDays(9), startDate.plusDays(13)).orElseThrow();
+        assertEquals(5, series.size());
+        assertEquals(new BigDecimal("1.0121"), series.getRate(startDate.plusDays(11)));
+        assertEquals(fxRates, rateArchive.getSeries("LT", "USD", startDate, endDate).orElseThrow().getFxRates(null, null));
+        assertTrue(rateArchive.getSeries("LT", "USD", startDate, endDate.plusDays(1)).isEmpty());
+        assertTrue(rateArchive.getSeries("EU", "USD", startDate, endDate).isEmpty());
+        assertTrue(rateArchive.getSeries("LT", "GBP", startDate, endDate).isEmpty());
+
+        // A range without rates is archived as well
+        rateArchive.appendRange("LT", "GBP", startDate, endDate, List.of());
+        assertEquals(0, rateArchive.getSeries("LT", "GBP", startDate, endDate).orElseThrow().size());
+        rateArchive.close();
+    }
+
+    @Test
+    void incompleteRecordIsTruncatedTest() throws IOException {
+
+        Path path = tempDir.resolve("fx-rates.archive");
+        RateArchive rateArchive = new RateArchive(path.toString());
+        rateArchive.append(List.of(createFxRateDTO("LT", DATE, "USD", "1.0856")));
+        rateArchive.close();
+        Files.write(path, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        rateArchive = new RateArchive(path.toString());
+
+        assertEquals(1, rateArchive.getRecordCount());
+        assertEquals(RateArchive.HEADER_SIZE + RateArchive.RECORD_SIZE, Files.size(path));
+        assertEquals(1, rateArchive.append(List.of(createFxRateDTO("LT", DATE.plusDays(1), "USD", "1.09"))));
+        assertEquals(DATE.plusDays(1), rateArchive.getLatestFxRates().get(0).getDate());
+        rateArchive.close();
+    }
+
+    @Test
+    void invalidFileDisablesArchiveTest() throws IOException {
+
+        Path path = tempDir.resolve("fx-rates.archive");
+        Files.writeString(path, "not an archive");
+
+        RateArchive rateArchive = new RateArchive(path.toString());
+
+        assertFalse(rateArchive.isEnabled());
+        assertEquals(0, rateArchive.append(List.of(createFxRateDTO("LT", DATE, "USD", "1.0856"))));
+        assertEquals("not an archive", Files.readString(path));
+    }
+
+    @Test
+    void disabledArchiveTest() {
+
+        RateArchive rateArchive = new RateArchive("");
+
+        assertFalse(rateArchive.isEnabled());
+        assertEquals(0, rateArchive.append(List.of(createFxRateDTO("LT", DATE, "USD", "1.0856"))));
+        assertTrue(rateArchive.getLatestFxRates().isEmpty());
+        assertTrue(rateArchive.getSeries("LT", "USD", DATE, DATE).isEmpty());
+    }
+
+    private FxRateDTO createFxRateDTO(String type, LocalDate date, String currency, String amount) {
+
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+        currencyAmounts.add(eur);
+
+        CcyAmtDTO target = new CcyAmtDTO();
+        target.setTargetCurrency(currency);
+        target.setAmount(new BigDecimal(amount));
+        currencyAmounts.add(target);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(type);
+        fxRateDTO.setDate(date);
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal(amount));
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        return fxRateDTO;
+    }
+}
@@ -0,0 +1,110 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateSeriesTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-03-04");
+
+    @Test
+    void ofGroupsByTypeAndCurrencyTest() {
+
+        List<RateSeries> series = RateSeries.of(List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE.minusDays(1), "USD", "1.0800"),
+                createFxRateDTO("LT", DATE, "JPY", "161.23"),
+                createFxRateDTO("EU", DATE, "USD", "1.0850"))).orElseThrow();
+
+        assertEquals(3, series.size());
+        assertEquals("LT", series.get(0).getType());
+        assertEquals("USD", series.get(0).getCurrencyCode());
+        assertEquals(2, series.get(0).size());
+        assertEquals("JPY", series.get(1).getCurrencyCode());
+        assertEquals("EU", series.get(2).getType());
+
+        RateSeries usd = series.get(0);
+        assertEquals(new BigDecimal("1.08"), usd.getRate(DATE.minusDays(1)));
+        assertEquals(10_856_000_000L, usd.getRateUnscaled(DATE));
+        assertEquals(RateSnapshot.MISSING, usd.getRateUnscaled(DATE.plusDays(1)));
+        assertNull(usd.getRate(DATE.minusDays(2)));
+    }
+
+    @Test
+    void getFxRatesRangeTest() {
+
+        List<FxRateDTO> fxRates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            fxRates.add(createFxRateDTO("LT", DATE.minusDays(2L * i), "USD", "1.0" + i));
+        }
+        RateSeries series = RateSeries.of(fxRates).orElseThrow().get(0);
+
+        List<FxRateDTO> result = series.getFxRates(DATE.minusDays(5), DATE.minusDays(1));
+
+        // Newest first; range bounds between stored days
+        assertEquals(List.of(DATE.minusDays(2), DATE.minusDays(4)), result.stream().map(FxRateDTO::getDate).toList());
+        assertEquals(new BigDecimal("1.01"), result.get(0).getRate());
+        assertEquals("EUR", result.get(0).getBaseCurrency());
+        assertEquals(BigDecimal.ONE, result.get(0).getCurrencyAmounts().get(0).getAmount());
+        assertEquals("USD", result.get(0).getCurrencyAmounts().get(1).getTargetCurrency());
+
+        assertEquals(10, series.getFxRates(null, null).size());
+        assertEquals(DATE, series.getFxRates(null, null).get(0).getDate());
+        assertEquals(1, series.getFxRates(DATE, DATE).size());
+        assertTrue(series.getFxRates(DATE.plusDays(1), null).isEmpty());
+        assertTrue(series.getFxRates(DATE.minusDays(3), DATE.minusDays(3)).isEmpty());
+    }
+
+    @Test
+    void duplicateDayKeepsLastRateTest() {
+
+        RateSeries series = RateSeries.of(List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE.minusDays(1), "USD", "1.0800"),
+                createFxRateDTO("LT", DATE, "USD", "1.0900"))).orElseThrow().get(0);
+
+        assertEquals(2, series.size());
+        assertEquals(new BigDecimal("1.09"), series.getRate(DATE));
+    }
+
+    @Test
+    void unsupportedRatesTest() {
+
+        FxRateDTO otherBase = createFxRateDTO("LT", DATE, "USD", "1.0856");
+        otherBase.getCurrencyAmounts().get(0).setAmount(BigDecimal.TEN);
+
+        assertTrue(RateSeries.of(List.of(otherBase)).isEmpty());
+        assertTrue(RateSeries.of(List.of(createFxRateDTO("LT", DATE, "USD", "1234567890123.45"))).isEmpty());
+        assertTrue(RateSeries.of(List.of()).orElseThrow().isEmpty());
+    }
+
+    private FxRateDTO createFxRateDTO(String type, LocalDate date, String currency, String amount) {
+
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+        currencyAmounts.add(eur);
+
+        CcyAmtDTO target = new CcyAmtDTO();
+        target.setTargetCurrency(currency);
+        target.setAmount(new BigDecimal(amount));
+        currencyAmounts.add(target);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(type);
+        fxRateDTO.setDate(date);
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal(amount));
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        return fxRateDTO;
+    }
+}
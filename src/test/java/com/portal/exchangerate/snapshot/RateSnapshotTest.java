@@ -0,0 +1,130 @@
+package com.portal.exchangerate.snapshot;
+
+import com.portal.exchangerate.dto.CcyAmtDTO;
+import com.portal.exchangerate.dto.FxRateDTO;
+import com.portal.exchangerate.enums.ExchangeRateType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateSnapshotTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-03-04");
+
+    @Test
+    void emptySnapshotTest() {
+
+        assertTrue(RateSnapshot.EMPTY.isEmpty());
+        assertTrue(RateSnapshot.EMPTY.getLatestDate(ExchangeRateType.LT).isEmpty());
+        assertNull(RateSnapshot.EMPTY.getLatestRate(ExchangeRateType.LT, "USD"));
+        assertTrue(RateSnapshot.EMPTY.getFxRates(ExchangeRateType.LT, DATE).isEmpty());
+    }
+
+    @Test
+    void lookupTest() {
+
+        List<FxRateDTO> fxRates = List.of(
+                createFxRateDTO("LT", DATE.minusDays(1), "USD", "1.0800"),
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE, "JPY", "161.23"),
+                createFxRateDTO("EU", DATE, "USD", "1.0850"));
+
+        RateSnapshot snapshot = RateSnapshot.of(7, fxRates);
+
+        assertEquals(7, snapshot.getVersion());
+        assertEquals(List.of("EUR", "JPY", "USD"), snapshot.getCurrencyCodes());
+        assertEquals(DATE, snapshot.getLatestDate(ExchangeRateType.LT).orElseThrow());
+        assertEquals(List.of(DATE.minusDays(1), DATE), snapshot.getDates(ExchangeRateType.LT));
+        assertEquals(new BigDecimal("1.0856"), snapshot.getLatestRate(ExchangeRateType.LT, "USD"));
+        assertEquals(new BigDecimal("1.08"), snapshot.getRate(ExchangeRateType.LT, DATE.minusDays(1), "USD"));
+        assertEquals(new BigDecimal("1.085"), snapshot.getLatestRate(ExchangeRateType.EU, "USD"));
+        assertEquals(BigDecimal.ONE, snapshot.getLatestRate(ExchangeRateType.LT, "EUR"));
+        assertNull(snapshot.getRate(ExchangeRateType.LT, DATE.minusDays(1), "JPY"));
+        assertNull(snapshot.getLatestRate(ExchangeRateType.EU, "JPY"));
+        assertEquals(RateSnapshot.MISSING, snapshot.getRateUnscaled(ExchangeRateType.LT, DATE, "GBP"));
+        assertEquals(10_856_000_000L, snapshot.getRateUnscaled(ExchangeRateType.LT, DATE, "USD"));
+    }
+
+    @Test
+    void getFxRatesTest() {
+
+        RateSnapshot snapshot = RateSnapshot.of(1, List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE, "JPY", "161.23")));
+
+        List<FxRateDTO> result = snapshot.getFxRates(ExchangeRateType.LT, DATE);
+
+        assertEquals(2, result.size());
+        FxRateDTO jpy = result.get(0);
+        assertEquals("LT", jpy.getType());
+        assertEquals(DATE, jpy.getDate());
+        assertEquals("EUR", jpy.getBaseCurrency());
+        assertEquals(new BigDecimal("161.23"), jpy.getRate());
+        assertEquals("EUR", jpy.getCurrencyAmounts().get(0).getTargetCurrency());
+        assertEquals("JPY", jpy.getCurrencyAmounts().get(1).getTargetCurrency());
+        assertEquals("USD", result.get(1).getCurrencyAmounts().get(1).getTargetCurrency());
+    }
+
+    @Test
+    void crossRatesTest() {
+
+        RateSnapshot snapshot = RateSnapshot.of(1, List.of(
+                createFxRateDTO("LT", DATE, "USD", "1.0856"),
+                createFxRateDTO("LT", DATE, "JPY", "161.23")));
+
+        CrossRateMatrix crossRates = snapshot.getLatestCrossRates(ExchangeRateType.LT);
+
+        assertSame(crossRates, snapshot.getCrossRates(ExchangeRateType.LT, DATE));
+        assertEquals(3, crossRates.size());
+        assertEquals(new BigDecimal("1.0856"), crossRates.getCrossRate("EUR", "USD"));
+        assertEquals(new BigDecimal("0.9211495947"), crossRates.getCrossRate("USD", "EUR"));
+        assertEquals(new BigDecimal("148.5169491525"), crossRates.getCrossRate("USD", "JPY"));
+        assertEquals(BigDecimal.ONE, crossRates.getCrossRate("JPY", "JPY"));
+        assertNull(crossRates.getCrossRate("USD", "GBP"));
+        assertEquals(-1, crossRates.indexOf("GBP"));
+        assertEquals(List.of("EUR", "JPY", "USD"), List.copyOf(crossRates.getRow("USD").keySet()));
+        assertTrue(crossRates.getRow("GBP").isEmpty());
+        assertNull(snapshot.getLatestCrossRates(ExchangeRateType.EU));
+    }
+
+    @Test
+    void holderPublishTest() {
+
+        RateSnapshotHolder holder = new RateSnapshotHolder();
+        assertSame(RateSnapshot.EMPTY, holder.get());
+
+        RateSnapshot first = holder.publish(List.of(createFxRateDTO("LT", DATE, "USD", "1.0856")));
+        RateSnapshot second = holder.publish(List.of(createFxRateDTO("LT", DATE, "USD", "1.0900")));
+
+        assertSame(second, holder.get());
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(new BigDecimal("1.0856"), first.getLatestRate(ExchangeRateType.LT, "USD"));
+    }
+
+    private FxRateDTO createFxRateDTO(String type, LocalDate date, String currency, String amount) {
+
+        List<CcyAmtDTO> currencyAmounts = new ArrayList<>();
+        CcyAmtDTO eur = new CcyAmtDTO();
+        eur.setTargetCurrency("EUR");
+        eur.setAmount(BigDecimal.ONE);
+        currencyAmounts.add(eur);
+
+        CcyAmtDTO target = new CcyAmtDTO();
+        target.setTargetCurrency(currency);
+        target.setAmount(new BigDecimal(amount));
+        currencyAmounts.add(target);
+
+        FxRateDTO fxRateDTO = new FxRateDTO();
+        fxRateDTO.setType(type);
+        fxRateDTO.setDate(date);
+        fxRateDTO.setBaseCurrency("EUR");
+        fxRateDTO.setRate(new BigDecimal(amount));
+        fxRateDTO.setCurrencyAmounts(currencyAmounts);
+        return fxRateDTO;
+    }
+}